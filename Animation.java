@@ -0,0 +1,183 @@
+/**
+ * Animation.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * An object that flips through a numbered set of images, like a
+ * Sprite with frames. It takes all of the same events as a Sprite,
+ * which move/fade/... the whole animation, plus:
+ *
+ * - frameCount, how many images there are,
+ * - frameDelay, how many milliseconds each one is shown for,
+ * - loopType, what happens after the last one (see LoopType).
+ *
+ * The file path is the name without a frame number. osu! puts the
+ * number in front of the extension, so an animation of
+ * "sb/fire.png" with 3 frames shows "sb/fire0.png", "sb/fire1.png"
+ * and "sb/fire2.png". The frames are counted from the animation's
+ * first command.
+ *
+ * One animation is a lot less work for osu! than a stack of sprites
+ * that each show one frame (see AnimationDetector, which turns those
+ * into animations).
+ *
+ * Changelog:
+ * 10/18/2026: Animation class created.
+ *
+ * @version 1.00
+ */
+
+import java.io.IOException;
+import java.util.TreeSet;
+
+public class Animation extends Storyboard {
+
+    private final int frameCount;
+    private final double frameDelay;
+    private final LoopType loopType;
+
+    //-----------------------------------------Constructors---------------------------------------------
+
+    /**
+     * @param layer      the layer that the animation is on
+     * @param origin     the point of the images that the position is of
+     * @param filePath   the images' path without the frame number, with
+     *                   respect to the folder the storyboard is in
+     * @param x          initial x position of the animation
+     * @param y          initial y position of the animation
+     * @param frameCount how many images there are (at least 1)
+     * @param frameDelay how long each image is shown, in milliseconds
+     * @param loopType   what happens after the last image
+     */
+    public Animation(Layer layer, Origin origin, String filePath, int x, int y,
+                     int frameCount, double frameDelay, LoopType loopType) {
+        if (frameCount < 1 || !(frameDelay > 0)) {
+            throw new IllegalArgumentException("An animation needs at least 1 frame and a "
+                    + "frame delay above 0, not " + frameCount + " and " + frameDelay + ".");
+        }
+        this.layer = layer;
+        this.origin = origin;
+        this.filePath = filePath;
+        this.x = x;
+        this.y = y;
+        this.startTime = -1;
+        this.frameCount = frameCount;
+        this.frameDelay = frameDelay;
+        this.loopType = loopType;
+        compilation = new TreeSet<StoryboardEvent>();
+    }
+
+    /**
+     * Same as the other constructor, looping forever.
+     */
+    public Animation(Layer layer, Origin origin, String filePath, int x, int y,
+                     int frameCount, double frameDelay) {
+        this(layer, origin, filePath, x, y, frameCount, frameDelay, LoopType.LoopForever);
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public double getFrameDelay() {
+        return frameDelay;
+    }
+
+    public LoopType getLoopType() {
+        return loopType;
+    }
+
+    //-----------------------------------------Frames---------------------------------------------
+
+    /**
+     * @param time a time in milliseconds
+     * @return which frame is shown at that time (0 before the animation
+     * starts)
+     */
+    public int getFrameAt(int time) {
+        int start = getStartTime();
+        if (time <= start) {
+            return 0;
+        }
+        long frame = (long) ((time - start) / frameDelay);
+        if (loopType == LoopType.LoopOnce) {
+            return (int) Math.min(frame, frameCount - 1);
+        }
+        return (int) (frame % frameCount);
+    }
+
+    /**
+     * @param frame a frame number
+     * @return the file path of that frame's image
+     */
+    public String getFramePath(int frame) {
+        int dot = filePath.lastIndexOf('.');
+        int folder = Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\'));
+        if (dot <= folder) {
+            return filePath + frame;
+        }
+        return filePath.substring(0, dot) + frame + filePath.substring(dot);
+    }
+
+    /**
+     * @param time a time in milliseconds
+     * @return the file path of the image shown at that time
+     */
+    public String getFilePathAt(int time) {
+        return getFramePath(getFrameAt(time));
+    }
+
+    //-----------------------------------------Vitals---------------------------------------------
+
+    /**
+     * @return the text to be printed into the SB file
+     */
+    public String toString() {
+        StringBuilder printing = new StringBuilder(64 + 40 * getEventCount());
+        try {
+            writeTo(printing);
+        } catch (IOException e) {
+            //StringBuilder never actually throws this
+        }
+        return printing.toString();
+    }
+
+    /**
+     * Writes the Animation declaration line:
+     * Animation,layer,origin,"filePath",x,y,frameCount,frameDelay,loopType
+     *
+     * @param out where the line gets written
+     * @throws IOException if the Appendable fails to write
+     */
+    protected void writeHeader(Appendable out) throws IOException {
+        out.append("Animation,").append(layer.toString()).append(',')
+                .append(origin.toString()).append(",\"").append(filePath)
+                .append('"');
+        OsbFormat.field(out, x);
+        OsbFormat.field(out, y);
+        OsbFormat.field(out, frameCount);
+        if (frameDelay == (int) frameDelay) {
+            OsbFormat.field(out, (int) frameDelay);
+        } else {
+            OsbFormat.field(out, frameDelay);
+        }
+        out.append(',').append(loopType.toString());
+    }
+
+    public Animation instance(EventTransform transform) {
+        return (Animation) super.instance(transform);
+    }
+
+    public Animation instance(int timeShift, int dx, int dy) {
+        return (Animation) super.instance(timeShift, dx, dy);
+    }
+
+    //the frames get sped up or slowed down with the rest of the instance
+    protected Animation blank(EventTransform transform) {
+        return new Animation(layer, origin, filePath, transform.x(x), transform.y(y),
+                frameCount, frameDelay * transform.getTimeScale(), loopType);
+    }
+}
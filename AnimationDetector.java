@@ -0,0 +1,325 @@
+/**
+ * AnimationDetector.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Finds stacks of sprites that are really one animation, and turns
+ * each stack into one Animation. Without an animation class, the
+ * way to show frames one after another was one sprite per frame,
+ * each one only visible for its turn, which makes osu! handle every
+ * sprite of the stack the whole time.
+ *
+ * Sprites are put in the same stack when they:
+ *
+ * - have file paths that only differ by a number in front of the
+ * extension (sb/fire0.png, sb/fire1.png, ...), written without
+ * leading zeros, since that's the only way osu! names the frames
+ * (sb/fire000.png, sb/fire001.png, ... are left alone),
+ * - have the same layer, origin and position, and the exact same
+ * commands other than fades (the same motion),
+ * - are each visible for one stretch of time, at the same opacity.
+ *
+ * A stack becomes an animation when its numbers go 0, 1, 2, ... with
+ * no gaps, every frame is visible for the same amount of time, each
+ * one right when the one before it stops, and none of the motion
+ * starts before the first frame (osu! counts the frames from an
+ * animation's first command). The animation plays once (LoopOnce),
+ * with the shared motion and one fade over all of the frames. Stacks
+ * that don't fit are left alone.
+ *
+ * Being visible is worked out from the fades only: they have to be
+ * instant, or keep the same opacity the whole way, so the opacity is
+ * the same the whole time a frame is shown.
+ *
+ * Changelog:
+ * 10/18/2026: Detector created.
+ * 10/18/2026: Frame numbers with leading zeros aren't turned into animations.
+ *
+ * @version 1.00
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class AnimationDetector {
+
+    private long animations = 0;
+    private long collapsedSprites = 0;
+
+    public AnimationDetector() {
+
+    }
+
+    /**
+     * @return how many animations have been made so far
+     */
+    public long getAnimations() {
+        return animations;
+    }
+
+    /**
+     * @return how many sprites have been turned into animations so far
+     */
+    public long getCollapsedSprites() {
+        return collapsedSprites;
+    }
+
+    //-----------------------------------------Detecting---------------------------------------------
+
+    /**
+     * One sprite that could be a frame of an animation.
+     */
+    private static final class Frame {
+
+        private final Storyboard sprite;
+        private final int position;
+        private final String prefix;
+        private final String extension;
+        private final int number;
+        private final List<StoryboardEvent> motion;
+        private final int from;
+        private final int to;
+        private final double opacity;
+
+        Frame(Storyboard sprite, int position, String prefix, String extension, int number,
+              List<StoryboardEvent> motion, int from, int to, double opacity) {
+            this.sprite = sprite;
+            this.position = position;
+            this.prefix = prefix;
+            this.extension = extension;
+            this.number = number;
+            this.motion = motion;
+            this.from = from;
+            this.to = to;
+            this.opacity = opacity;
+        }
+    }
+
+    /**
+     * Turns every stack of frame sprites into an animation.
+     *
+     * @param objects the storyboard objects
+     * @return the objects, with each stack replaced by its animation
+     * (where the first sprite of the stack was)
+     */
+    public ArrayList<Storyboard> detect(Collection<? extends Storyboard> objects) {
+        List<Storyboard> list = new ArrayList<Storyboard>(objects);
+
+        //stacks by everything their sprites have to share
+        Map<String, List<Frame>> stacks = new LinkedHashMap<String, List<Frame>>();
+        for (int i = 0; i < list.size(); i++) {
+            Frame f = frame(list.get(i), i);
+            if (f == null) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder();
+            Storyboard s = f.sprite;
+            key.append(s.getLayer()).append(',').append(s.getOrigin()).append(',')
+                    .append(s.getX()).append(',').append(s.getY()).append(',')
+                    .append(f.prefix).append('|').append(f.extension);
+            for (StoryboardEvent e : f.motion) {
+                key.append('\n').append(e.toString());
+            }
+            List<Frame> stack = stacks.get(key.toString());
+            if (stack == null) {
+                stack = new ArrayList<Frame>();
+                stacks.put(key.toString(), stack);
+            }
+            stack.add(f);
+        }
+
+        Storyboard[] replaced = new Storyboard[list.size()];
+        Set<Integer> removed = new HashSet<Integer>();
+        for (List<Frame> stack : stacks.values()) {
+            Animation a = animation(stack);
+            if (a == null) {
+                continue;
+            }
+            int first = Integer.MAX_VALUE;
+            for (Frame f : stack) {
+                first = Math.min(first, f.position);
+                removed.add(f.position);
+            }
+            replaced[first] = a;
+            animations++;
+            collapsedSprites += stack.size();
+        }
+
+        ArrayList<Storyboard> result = new ArrayList<Storyboard>(list.size() - removed.size());
+        for (int i = 0; i < list.size(); i++) {
+            if (replaced[i] != null) {
+                result.add(replaced[i]);
+            } else if (!removed.contains(i)) {
+                result.add(list.get(i));
+            }
+        }
+        return result;
+    }
+
+    //looks at one object, or gives back null if it can't be a frame
+    private static Frame frame(Storyboard s, int position) {
+        if (!(s instanceof Sprite)) {
+            return null;
+        }
+        //the number right in front of the extension
+        String path = s.getFilePath();
+        int folder = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        int dot = path.lastIndexOf('.');
+        if (dot <= folder) {
+            dot = path.length();
+        }
+        int digits = dot;
+        while (digits > folder + 1 && Character.isDigit(path.charAt(digits - 1))) {
+            digits--;
+        }
+        if (digits == dot || dot - digits > 9) {
+            return null;
+        }
+        String written = path.substring(digits, dot);
+        int number = Integer.parseInt(written);
+        //osu! looks for fire0.png, so fire000.png can't be a frame
+        if (!written.equals(Integer.toString(number))) {
+            return null;
+        }
+
+        List<StoryboardEvent> fades = new ArrayList<StoryboardEvent>();
+        List<StoryboardEvent> motion = new ArrayList<StoryboardEvent>();
+        int lifeStart = Integer.MAX_VALUE;
+        int lifeEnd = Integer.MIN_VALUE;
+        for (StoryboardEvent e : s.getEvents()) {
+            lifeStart = Math.min(lifeStart, e.getStartTime());
+            lifeEnd = Math.max(lifeEnd, e.getEndTime());
+            if (e.getEventType() == EventType.F) {
+                fades.add(e);
+            } else {
+                if (e instanceof LoopEvent) {
+                    //fades in loops would change when the frame is visible
+                    for (StoryboardEvent c : ((LoopEvent) e).getCommands()) {
+                        if (c.getEventType() == EventType.F) {
+                            return null;
+                        }
+                    }
+                }
+                motion.add(e);
+            }
+        }
+        if (lifeStart > lifeEnd) {
+            return null;
+        }
+        double[] window = visible(fades, lifeStart, lifeEnd);
+        if (window == null) {
+            return null;
+        }
+        return new Frame(s, position, path.substring(0, digits), path.substring(dot), number,
+                motion, (int) window[0], (int) window[1], window[2]);
+    }
+
+    /**
+     * Works out when an object is visible from its fades.
+     *
+     * @return {from, to, opacity} if it's visible for one stretch of
+     * time at one opacity, or null if it isn't
+     */
+    private static double[] visible(List<StoryboardEvent> fades, int lifeStart, int lifeEnd) {
+        if (fades.isEmpty()) {
+            return new double[]{lifeStart, lifeEnd, 1};
+        }
+        double[] from = new double[1];
+        double[] to = new double[1];
+        double[] window = null;
+
+        //the opacity before the first fade is that fade's starting one
+        EventValues.startValues(fades.get(0), from);
+        int t = lifeStart;
+        double value = from[0];
+        for (StoryboardEvent f : fades) {
+            EventValues.startValues(f, from);
+            EventValues.endValues(f, to);
+            if (from[0] != to[0] && f.getStartTime() != f.getEndTime()) {
+                return null;
+            }
+            window = stretch(window, t, f.getStartTime(), value);
+            if (window != null && window.length == 0) {
+                return null;
+            }
+            window = stretch(window, f.getStartTime(), f.getEndTime(), from[0]);
+            if (window != null && window.length == 0) {
+                return null;
+            }
+            t = f.getEndTime();
+            value = to[0];
+        }
+        window = stretch(window, t, lifeEnd, value);
+        return window == null || window.length == 0 ? null : window;
+    }
+
+    //adds [from, to) at an opacity to the visible stretch so far; gives
+    //back an empty array if that makes it two stretches or two opacities
+    private static double[] stretch(double[] window, int from, int to, double opacity) {
+        if (from >= to || opacity <= 0) {
+            return window;
+        }
+        if (window == null) {
+            return new double[]{from, to, opacity};
+        }
+        if (window[1] != from || window[2] != opacity) {
+            return new double[0];
+        }
+        window[1] = to;
+        return window;
+    }
+
+    //turns a stack into an animation, or gives back null if it doesn't fit
+    private static Animation animation(List<Frame> stack) {
+        if (stack.size() < 2) {
+            return null;
+        }
+        List<Frame> frames = new ArrayList<Frame>(stack);
+        frames.sort(Comparator.comparingInt(f -> f.number));
+        Frame first = frames.get(0);
+        int delay = first.to - first.from;
+        if (delay <= 0) {
+            return null;
+        }
+        for (int i = 0; i < frames.size(); i++) {
+            Frame f = frames.get(i);
+            if (f.number != i || f.from != first.from + i * delay
+                    || f.to != f.from + delay || f.opacity != first.opacity) {
+                return null;
+            }
+        }
+        int end = first.from + frames.size() * delay;
+        int motionEnd = end;
+        for (StoryboardEvent e : first.motion) {
+            if (e.getStartTime() < first.from) {
+                return null;
+            }
+            motionEnd = Math.max(motionEnd, e.getEndTime());
+        }
+
+        Storyboard s = first.sprite;
+        Animation a = new Animation(s.getLayerENUM(), s.getOriginENUM(),
+                first.prefix + first.extension, s.getX(), s.getY(), frames.size(), delay,
+                LoopType.LoopOnce);
+        for (StoryboardEvent e : first.motion) {
+            a.addToCompilation(e, false);
+        }
+        a.addToCompilation(new FadeEvent(0, first.from, end, first.opacity, first.opacity),
+                false);
+        if (motionEnd > end) {
+            //the motion goes on after the last frame, so hide it then
+            a.addToCompilation(new FadeEvent(0, end, end, 0, 0), false);
+        }
+        a.seal();
+        return a;
+    }
+}
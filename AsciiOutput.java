@@ -0,0 +1,130 @@
+/**
+ * AsciiOutput.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * The part the storyboard output backends share: an Appendable that
+ * turns characters straight into bytes. .osb files are practically
+ * all ASCII, so each char just becomes one byte, with no encoder or
+ * char[] in between. The odd non-ASCII character (like in a file
+ * name) is written as UTF-8.
+ *
+ * Where the bytes go is up to the backend: AsciiWriter buffers them
+ * for an OutputStream, ChannelWriter puts them in direct buffers for
+ * a FileChannel.
+ *
+ * Changelog:
+ * 10/18/2026: Split out of AsciiWriter, so ChannelWriter doesn't have to
+ * extend it.
+ *
+ * @version 1.00
+ */
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+public abstract class AsciiOutput implements Appendable, Flushable, Closeable {
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    //first half of a surrogate pair that is waiting for its second half
+    private char pendingHigh = 0;
+
+    //-----------------------------------------Appendable---------------------------------------------
+
+    public AsciiOutput append(char c) throws IOException {
+        if (c < 0x80 && pendingHigh == 0) {
+            put((byte) c);
+        } else {
+            appendSlow(c);
+        }
+        return this;
+    }
+
+    public AsciiOutput append(CharSequence cs) throws IOException {
+        if (cs == null) {
+            cs = "null";
+        }
+        return append(cs, 0, cs.length());
+    }
+
+    public AsciiOutput append(CharSequence cs, int start, int end) throws IOException {
+        if (cs == null) {
+            cs = "null";
+        }
+        for (int i = start; i < end; i++) {
+            append(cs.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Writes the line separator, the same one PrintWriter.println uses.
+     *
+     * @return this output
+     * @throws IOException if the output fails
+     */
+    public AsciiOutput newLine() throws IOException {
+        return append(NEWLINE);
+    }
+
+    //-----------------------------------------Backend---------------------------------------------
+
+    /**
+     * Writes raw bytes that were already encoded somewhere else
+     * (like a sprite that was rendered ahead of time).
+     *
+     * @param b   the bytes
+     * @param off where to start in b
+     * @param len how many bytes to write
+     * @throws IOException if the output fails
+     */
+    public abstract void write(byte[] b, int off, int len) throws IOException;
+
+    /**
+     * @return the number of bytes handed to this output so far
+     */
+    public abstract long getBytesWritten();
+
+    /**
+     * Writes one byte.
+     */
+    protected abstract void put(byte b) throws IOException;
+
+    //-----------------------------------------Helpers---------------------------------------------
+
+    //UTF-8 encoding for anything outside of plain ASCII
+    private void appendSlow(char c) throws IOException {
+        if (pendingHigh != 0) {
+            char high = pendingHigh;
+            pendingHigh = 0;
+            if (Character.isLowSurrogate(c)) {
+                int cp = Character.toCodePoint(high, c);
+                put((byte) (0xF0 | (cp >> 18)));
+                put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                put((byte) (0x80 | (cp & 0x3F)));
+                return;
+            }
+            put((byte) '?');
+        }
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            put((byte) (0xC0 | (c >> 6)));
+            put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHigh = c;
+        } else if (Character.isLowSurrogate(c)) {
+            put((byte) '?');
+        } else {
+            put((byte) (0xE0 | (c >> 12)));
+            put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * AsciiWriter.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * A buffered Appendable that turns characters straight into bytes
+ * and pushes them into an OutputStream. .osb files are practically
+ * all ASCII, so each char just becomes one byte in a big buffer,
+ * with no encoder or char[] in between. The odd non-ASCII character
+ * (like in a file name) is written as UTF-8 (see AsciiOutput).
+ *
+ * Storyboards and events write themselves into one of these with
+ * writeTo, so a whole storyboard gets streamed to disk line by line
+ * instead of being built up as one giant String first.
+ *
+ * Changelog:
+ * 10/18/2026: Created for the streaming serializer.
+ * 10/18/2026: Opened up for subclasses with their own output (ChannelWriter).
+ * 10/18/2026: The encoding moved into AsciiOutput, which ChannelWriter extends
+ * instead of this class.
+ *
+ * @version 1.00
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class AsciiWriter extends AsciiOutput {
+
+    //default buffer size, 64KB
+    public static final int DEFAULT_BUFFER = 1 << 16;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count = 0;
+    private long bytesWritten = 0;
+
+    public AsciiWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER);
+    }
+
+    public AsciiWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    //-----------------------------------------Output---------------------------------------------
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len >= buffer.length) {
+            drain();
+            out.write(b, off, len);
+            bytesWritten += len;
+            return;
+        }
+        if (len > buffer.length - count) {
+            drain();
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten + count;
+    }
+
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    //-----------------------------------------Helpers---------------------------------------------
+
+    /**
+     * Puts one byte into the buffer, emptying it first if it's full.
+     */
+    protected void put(byte b) throws IOException {
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = b;
+    }
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            bytesWritten += count;
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * BuildCache.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Keeps the text of every object from the last build in a file, so
+ * the next build only has to turn the objects that changed into text.
+ * Most of the time spent writing a storyboard goes into formatting
+ * numbers; working out whether an object changed is much cheaper.
+ *
+ * Each object gets a 128-bit key made from its header line and every
+ * value of every compiled command (the previous values filled in,
+ * loops and their commands included), without formatting anything.
+ * If the key was in the last build, that text gets used again as it
+ * is; if not, the object is rendered like Writer does. Use it with
+ * Writer.setBuildCache, which calls save() at closing().
+ *
+ * Only the objects of the latest build are saved, so the file doesn't
+ * keep growing with every version of the storyboard. A cache file
+ * that can't be read (missing, from another version, broken) just
+ * means everything gets rendered again.
+ *
+ * Changelog:
+ * 10/18/2026: Build cache created.
+ *
+ * @version 1.00
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BuildCache {
+
+    //starts every cache file, "JOSGBC" and a version number
+    private static final long MAGIC = 0x4a4f534742430001L;
+
+    /**
+     * The key of one object.
+     */
+    private static final class Key {
+
+        private final long high;
+        private final long low;
+
+        Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).high == high && ((Key) o).low == low;
+        }
+
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32));
+        }
+    }
+
+    private final Path file;
+
+    //the chunks from the last build, and the ones used by this one
+    private final Map<Key, byte[]> saved = new ConcurrentHashMap<Key, byte[]>();
+    private final Map<Key, byte[]> used = new ConcurrentHashMap<Key, byte[]>();
+
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong rendered = new AtomicLong();
+
+    /**
+     * Opens a cache, loading what the last build saved in it.
+     *
+     * @param file the cache file (it doesn't have to exist yet)
+     */
+    public BuildCache(Path file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * @return how many objects were written from the cache so far
+     */
+    public long getReused() {
+        return reused.get();
+    }
+
+    /**
+     * @return how many objects had to be rendered so far
+     */
+    public long getRendered() {
+        return rendered.get();
+    }
+
+    /**
+     * @return how many chunks the last build left in the cache
+     */
+    public int size() {
+        return saved.size();
+    }
+
+    //-----------------------------------------Rendering---------------------------------------------
+
+    /**
+     * Gets an object's text (plus its line break), from the cache if
+     * it's the same as in the last build. Safe to call from several
+     * threads at once, like Writer's parallel mode does.
+     *
+     * @param s the object
+     * @return the text, as bytes
+     */
+    public byte[] render(Storyboard s) {
+        Key key = key(s);
+        byte[] chunk = used.get(key);
+        if (chunk == null) {
+            chunk = saved.get(key);
+        }
+        if (chunk != null) {
+            reused.incrementAndGet();
+        } else {
+            chunk = Writer.render(s);
+            rendered.incrementAndGet();
+        }
+        used.put(key, chunk);
+        return chunk;
+    }
+
+    /**
+     * Saves the chunks of this build in the cache file, for the next
+     * build. It goes into a temporary file first, and then replaces
+     * the old one, so a build that gets cut off doesn't break the cache.
+     *
+     * @throws IOException if the file can't be written
+     */
+    public void save() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, "buildcache", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeLong(MAGIC);
+            out.writeInt(used.size());
+            for (Map.Entry<Key, byte[]> e : used.entrySet()) {
+                out.writeLong(e.getKey().high);
+                out.writeLong(e.getKey().low);
+                out.writeInt(e.getValue().length);
+                out.write(e.getValue());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readLong() != MAGIC) {
+                System.out.println("Build cache is from another version, starting over.");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Key key = new Key(in.readLong(), in.readLong());
+                byte[] chunk = new byte[in.readInt()];
+                in.readFully(chunk);
+                saved.put(key, chunk);
+            }
+        } catch (IOException e) {
+            System.out.println("Build cache couldn't be read, starting over.");
+            saved.clear();
+        }
+    }
+
+    //-----------------------------------------Keys---------------------------------------------
+
+    /**
+     * Works out an object's key, from its header line and its compiled
+     * commands. Two lanes of 64 bits are mixed with different constants,
+     * so two different objects getting the same key doesn't happen in
+     * practice.
+     */
+    static Key key(Storyboard s) {
+        StringBuilder header = new StringBuilder(64);
+        try {
+            s.seal();
+            s.writeHeader(header);
+        } catch (IOException e) {
+            //a StringBuilder never fails to write
+        }
+        Hasher h = new Hasher();
+        for (int i = 0; i < header.length(); i++) {
+            h.add(header.charAt(i));
+        }
+        double[] values = new double[3];
+        for (StoryboardEvent e : s.getEvents()) {
+            event(h, e, values);
+        }
+        return h.key();
+    }
+
+    private static void event(Hasher h, StoryboardEvent e, double[] values) {
+        h.add(e.getEventType().ordinal());
+        h.add(e.getEasing());
+        h.add(e.getStartTime());
+        h.add(e.getEndTime());
+        if (e instanceof LoopEvent) {
+            LoopEvent loop = (LoopEvent) e;
+            h.add(loop.getLoopCount());
+            h.add(loop.getCommands().size());
+            for (StoryboardEvent c : loop.getCommands()) {
+                event(h, c, values);
+            }
+            return;
+        }
+        int n = EventValues.channels(e.getEventType());
+        if (n < 0) {
+            //a kind of event without values to read, so its line is the key
+            String line = e.toString();
+            for (int i = 0; i < line.length(); i++) {
+                h.add(line.charAt(i));
+            }
+            return;
+        }
+        EventValues.startValues(e, values);
+        for (int i = 0; i < n; i++) {
+            h.add(Double.doubleToLongBits(values[i]));
+        }
+        EventValues.endValues(e, values);
+        for (int i = 0; i < n; i++) {
+            h.add(Double.doubleToLongBits(values[i]));
+        }
+    }
+
+    //two multiply-xorshift lanes, finished like MurmurHash3's fmix64
+    private static final class Hasher {
+
+        private long a = 0x9e3779b97f4a7c15L;
+        private long b = 0xc2b2ae3d27d4eb4fL;
+
+        void add(long v) {
+            a = (a ^ v) * 0xff51afd7ed558ccdL;
+            a ^= a >>> 29;
+            b = (b + v) * 0xc4ceb9fe1a85ec53L;
+            b ^= b >>> 31;
+        }
+
+        Key key() {
+            return new Key(finish(a), finish(b ^ a));
+        }
+
+        private static long finish(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            return h ^ (h >>> 33);
+        }
+    }
+}
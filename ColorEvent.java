@@ -28,10 +28,13 @@
  *
  * Changelog:
  * 1/27/2015: Finished draft.
+ * 10/18/2026: previousChecking removed, PreviousResolver fills in the previous values.
  *
  * @author Erina
  * @version 1.00
  */
+import java.io.IOException;
+
 public class ColorEvent extends StoryboardEvent {
 
     protected int r1, r2, b1, b2, g1, g2 = 0;
@@ -76,33 +79,14 @@ public class ColorEvent extends StoryboardEvent {
         return b2;
     }
 
-    /**
-     * Previous checking for ColorEvent
-     *
-     * @param o storyboard event to be compared with, and to
-     *          attempt to extract previous values out of
-     * @return true if values were obtained, false if this event
-     * cannot take the previous values from the other (maybe
-     * due to the fact that the other event doesn't come previous
-     * to current, or if the event type aren't the same).
-     */
-    public boolean previousChecking(StoryboardEvent o) {
-        if (o instanceof ColorEvent) {
-            ColorEvent c = (ColorEvent) o;
-            if (c.getEndTime() <= this.startTime) {
-                this.r1 = c.getR2();
-                this.b1 = c.getB2();
-                this.g1 = c.getG2();
-                return true;
-            }
-        }
-        return false;
-    }
-
-    public String toString() {
-        return " C," + easing + "," + startTime + "," + endTime +
-                "," + r1 + "," + g1 + "," + b1 + "," +
-                r2 + "," + g2 + "," + b2;
+    public void writeTo(Appendable out) throws IOException {
+        writeCommon(out, "C");
+        OsbFormat.field(out, r1);
+        OsbFormat.field(out, g1);
+        OsbFormat.field(out, b1);
+        OsbFormat.field(out, r2);
+        OsbFormat.field(out, g2);
+        OsbFormat.field(out, b2);
     }
 
 }
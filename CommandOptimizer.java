@@ -0,0 +1,351 @@
+/**
+ * CommandOptimizer.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * A pass that shrinks a storyboard before it gets written.
+ * Scripts that loop over frames tend to spit out long runs of
+ * commands that could be one command, and every extra line makes
+ * the .osb bigger and makes osu! take longer to load it.
+ *
+ * For each storyboard object, and each event type separately,
+ * the optimizer:
+ *
+ * - Merges back-to-back linear (easing 0) commands that continue
+ * each other at the same rate. For example two moves that lie on one
+ * straight line at the same speed, or two fades that hold the same
+ * opacity, become one command.
+ *
+ * - Drops commands that don't change anything. These are commands
+ * that hold the value the property already had (like a fade from 0.5
+ * to 0.5 right after a fade that ended at 0.5), including zero-length
+ * ones. A command is never dropped if it's the first or last thing the
+ * object does, since that would change when the object shows up or
+ * goes away.
+ *
+ * - Optionally rounds decimal values (opacity, scale, angle) to a
+ * set number of decimals, so they print shorter.
+ *
+ * M, MX and MY all set the same x and y, so an object that uses more
+ * than one of them only gets its moves rounded: what a move holds or
+ * continues depends on the other two types as well.
+ *
+ * It gives back a Report with the number of commands and bytes
+ * before and after. Writer can run one of these on everything it
+ * writes (see Writer.setOptimizer), or you can run it yourself.
+ *
+ * Changelog:
+ * 10/18/2026: Optimizer created.
+ * 10/18/2026: Leaves alone event types that are used inside loops.
+ * 10/18/2026: Moves aren't merged or dropped when M, MX and MY are mixed.
+ * 10/18/2026: Rebuilt events keep their tookPrevious flag.
+ *
+ * @version 1.00
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+
+public class CommandOptimizer {
+
+    //how close two rates have to be to count as the same
+    private static final double EPSILON = 1e-9;
+
+    //the event types that all write the position
+    private static final EnumSet<EventType> MOVES =
+            EnumSet.of(EventType.M, EventType.MX, EventType.MY);
+
+    //decimals to round to, or -1 to leave values alone
+    private int precision = -1;
+
+    public CommandOptimizer() {
+
+    }
+
+    /**
+     * Makes an optimizer that also rounds decimal values.
+     *
+     * @param precision how many decimals to keep (-1 to not round)
+     */
+    public CommandOptimizer(int precision) {
+        this.precision = precision;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public void setPrecision(int precision) {
+        this.precision = precision;
+    }
+
+    //-----------------------------------------Optimizing---------------------------------------------
+
+    /**
+     * Optimizes every object in the list.
+     *
+     * @param objects the storyboard objects to optimize
+     * @return what was saved
+     */
+    public Report optimize(Collection<? extends Storyboard> objects) {
+        Report report = new Report();
+        for (Storyboard s : objects) {
+            optimize(s, report);
+        }
+        return report;
+    }
+
+    /**
+     * Optimizes one object.
+     *
+     * @param object the storyboard object to optimize
+     * @return what was saved
+     */
+    public Report optimize(Storyboard object) {
+        Report report = new Report();
+        optimize(object, report);
+        return report;
+    }
+
+    private void optimize(Storyboard object, Report report) {
+        Collection<StoryboardEvent> events = object.getEvents();
+        report.commandsBefore += events.size();
+        report.bytesBefore += size(object);
+
+        //the first and last moments the object does anything
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (StoryboardEvent e : events) {
+            first = Math.min(first, e.getStartTime());
+            last = Math.max(last, e.getEndTime());
+        }
+
+        //split up by type, staying in start time order. Types that show
+        //up inside loops are left alone, since the loop changes their
+        //value in between the commands out here.
+        EnumMap<EventType, List<StoryboardEvent>> byType =
+                new EnumMap<EventType, List<StoryboardEvent>>(EventType.class);
+        EnumSet<EventType> looped = EnumSet.noneOf(EventType.class);
+        for (StoryboardEvent e : events) {
+            if (e instanceof LoopEvent) {
+                for (StoryboardEvent c : ((LoopEvent) e).getCommands()) {
+                    looped.add(c.getEventType());
+                }
+            }
+        }
+        EnumSet<EventType> moves = EnumSet.copyOf(looped);
+        for (StoryboardEvent e : events) {
+            moves.add(e.getEventType());
+            List<StoryboardEvent> list = byType.get(e.getEventType());
+            if (list == null) {
+                list = new ArrayList<StoryboardEvent>();
+                byType.put(e.getEventType(), list);
+            }
+            list.add(e);
+        }
+        moves.retainAll(MOVES);
+        boolean mixedMoves = moves.size() > 1;
+
+        ArrayList<StoryboardEvent> result = new ArrayList<StoryboardEvent>(events.size());
+        boolean changed = false;
+        for (List<StoryboardEvent> list : byType.values()) {
+            if (looped.contains(list.get(0).getEventType())) {
+                result.addAll(list);
+                continue;
+            }
+            boolean stateful = !(mixedMoves && MOVES.contains(list.get(0).getEventType()));
+            List<StoryboardEvent> optimized = optimizeType(list, first, last, stateful);
+            changed |= optimized != list;
+            result.addAll(optimized);
+        }
+
+        if (changed) {
+            Collections.sort(result, (a, b) -> a.getStartTime() - b.getStartTime());
+            object.replaceEvents(result);
+        }
+        report.commandsAfter += object.getEventCount();
+        report.bytesAfter += size(object);
+    }
+
+    /**
+     * Runs the rules over all events of one type.
+     *
+     * @param stateful false to only round, when other types change the
+     *                 same value in between these events
+     * @return the same list if nothing changed, otherwise a new one
+     */
+    private List<StoryboardEvent> optimizeType(List<StoryboardEvent> list, int first, int last,
+                                               boolean stateful) {
+        EventType type = list.get(0).getEventType();
+        int n = EventValues.channels(type);
+        if (n <= 0) {
+            return list;
+        }
+
+        ArrayList<StoryboardEvent> kept = new ArrayList<StoryboardEvent>(list.size());
+        boolean changed = false;
+        double[] prevFrom = new double[n];
+        double[] prevTo = new double[n];
+        double[] from = new double[n];
+        double[] to = new double[n];
+
+        for (StoryboardEvent e : list) {
+            EventValues.startValues(e, from);
+            EventValues.endValues(e, to);
+            if (precision >= 0 && !EventColumns.isIntType(type)
+                    && (roundAll(from) | roundAll(to))) {
+                StoryboardEvent rounded = EventValues.make(type, e.getEasing(), e.getStartTime(),
+                        e.getEndTime(), from, to);
+                rounded.setTookPrevious(e.tookPrevious());
+                e = rounded;
+                changed = true;
+            }
+
+            StoryboardEvent prev = kept.isEmpty() || !stateful ? null : kept.get(kept.size() - 1);
+            if (prev != null) {
+                EventValues.startValues(prev, prevFrom);
+                EventValues.endValues(prev, prevTo);
+
+                //holds the value that's already there: drop it, unless it's
+                //what makes the object start or stop existing
+                if (same(from, to) && same(from, prevTo) && prev.getEndTime() <= e.getStartTime()
+                        && e.getStartTime() > first && e.getEndTime() < last) {
+                    changed = true;
+                    continue;
+                }
+
+                //continues the previous command at the same rate: merge them
+                if (prev.getEasing() == 0 && e.getEasing() == 0
+                        && prev.getEndTime() == e.getStartTime() && same(from, prevTo)
+                        && sameRate(prevFrom, prevTo, prev.getEndTime() - prev.getStartTime(),
+                        from, to, e.getEndTime() - e.getStartTime())) {
+                    StoryboardEvent merged = EventValues.make(type, 0, prev.getStartTime(),
+                            e.getEndTime(), prevFrom, to);
+                    merged.setTookPrevious(prev.tookPrevious());
+                    kept.set(kept.size() - 1, merged);
+                    changed = true;
+                    continue;
+                }
+            }
+            kept.add(e);
+        }
+        return changed ? kept : list;
+    }
+
+    //-----------------------------------------Helpers---------------------------------------------
+
+    private boolean roundAll(double[] values) {
+        boolean changed = false;
+        double scale = Math.pow(10, precision);
+        for (int i = 0; i < values.length; i++) {
+            double r = Math.round(values[i] * scale) / scale;
+            if (r != values[i]) {
+                values[i] = r;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean same(double[] a, double[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //do two commands change every channel at the same rate?
+    private static boolean sameRate(double[] aFrom, double[] aTo, int aLength,
+                                    double[] bFrom, double[] bTo, int bLength) {
+        if (same(aFrom, aTo) && same(bFrom, bTo)) {
+            return true;
+        }
+        if (aLength <= 0 || bLength <= 0) {
+            return false;
+        }
+        for (int i = 0; i < aFrom.length; i++) {
+            //compare rates by cross-multiplying, so whole-number moves compare exactly
+            double a = (aTo[i] - aFrom[i]) * bLength;
+            double b = (bTo[i] - bFrom[i]) * aLength;
+            if (Math.abs(a - b) > EPSILON * Math.max(1, Math.max(Math.abs(a), Math.abs(b)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //how many bytes the object takes up in the .osb
+    private static long size(Storyboard object) {
+        Counter counter = new Counter();
+        try {
+            object.writeTo(counter);
+            counter.append('\n');
+        } catch (IOException e) {
+            //Counter never actually throws this
+        }
+        return counter.count;
+    }
+
+    /**
+     * An Appendable that only counts what would have been written.
+     */
+    private static class Counter implements Appendable {
+        long count = 0;
+
+        public Appendable append(CharSequence cs) {
+            count += cs.length();
+            return this;
+        }
+
+        public Appendable append(CharSequence cs, int start, int end) {
+            count += end - start;
+            return this;
+        }
+
+        public Appendable append(char c) {
+            count++;
+            return this;
+        }
+    }
+
+    /**
+     * What an optimizer run saved.
+     */
+    public static class Report {
+        private long commandsBefore = 0;
+        private long commandsAfter = 0;
+        private long bytesBefore = 0;
+        private long bytesAfter = 0;
+
+        public long getCommandsBefore() {
+            return commandsBefore;
+        }
+
+        public long getCommandsAfter() {
+            return commandsAfter;
+        }
+
+        public long getBytesBefore() {
+            return bytesBefore;
+        }
+
+        public long getBytesAfter() {
+            return bytesAfter;
+        }
+
+        public String toString() {
+            return "Optimizer: " + commandsBefore + " -> " + commandsAfter + " commands, "
+                    + bytesBefore + " -> " + bytesAfter + " bytes";
+        }
+    }
+}
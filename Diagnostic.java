@@ -0,0 +1,55 @@
+/**
+ * Diagnostic.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Every kind of warning the program can give while a storyboard is
+ * being made. These used to be exceptions (DuplicateEventException,
+ * EventOverlapException, ...) that got thrown and caught right away
+ * just to print their message. Now a warning is only a code, the object
+ * it happened on and a time, and it gets sent to a DiagnosticSink
+ * (see DiagnosticLog). The messages are the same as the old ones.
+ *
+ * Changelog:
+ * 10/18/2026: Warning codes created to replace the thrown and caught exceptions.
+ *
+ * @version 1.00
+ */
+public enum Diagnostic {
+
+    DUPLICATE_EVENT("WARNING: There is a duplicate event of the same type " +
+            "that occurs during this time. \nThis is most likely " +
+            "unintentional! This warning " +
+            "occurred at time ", "."),
+    EVENT_OVERLAP("WARNING: One of your events currently begins in the middle " +
+            "of another of the same event type.\nMake sure that this is " +
+            "intentional, else unintended results may occur! " +
+            "Event happened at start time ", "."),
+    PROPORTION_DISAGREEMENT("WARNING: The length and height of an object " +
+            "does not match its original proportions when a " +
+            "normal scale event occurred.\nThis may result in " +
+            "skewed proportions and unintended results. This warning " +
+            "occurred at time ", "."),
+    NESTED_LOOP("WARNING: osu! doesn't allow a loop inside of another loop. " +
+            "\nThe inner loop was left out! This warning " +
+            "occurred at time ", ".");
+
+    private final String before;
+    private final String after;
+
+    Diagnostic(String before, String after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * @param time the time the warning happened at
+     * @return the warning message, the same one the old exception had
+     */
+    public String message(int time) {
+        return before + time + after;
+    }
+}
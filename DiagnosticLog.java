@@ -0,0 +1,225 @@
+/**
+ * DiagnosticLog.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * The default DiagnosticSink. It keeps every warning as one row of
+ * three primitive arrays (code, object id, time), counts how many of
+ * each kind there were, and prints the first few of each kind to
+ * System.out the same way the old exceptions did. After that it only
+ * counts them, so a noisy storyboard doesn't spend its time printing.
+ *
+ * Once the storyboard is made, the warnings can be looked at one by
+ * one (getCode/getObject/getTime), counted (count), or written out as
+ * a summary (report).
+ *
+ * Only the first "capacity" warnings are kept as rows, the counts
+ * keep going after that.
+ *
+ * The sink the whole program reports to is kept here too, see
+ * getSink/setSink.
+ *
+ * Changelog:
+ * 10/18/2026: Log created to replace printing warnings from caught exceptions.
+ *
+ * @version 1.00
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class DiagnosticLog implements DiagnosticSink {
+
+    private static final Diagnostic[] CODES = Diagnostic.values();
+
+    //the sink every warning goes to
+    private static volatile DiagnosticSink sink = new DiagnosticLog();
+
+    //how many warnings of each kind get printed before the rest are only counted
+    private int echoLimit = 100;
+
+    //the most warnings kept as rows
+    private int capacity = 1 << 20;
+
+    private int size = 0;
+    private byte[] code = new byte[16];
+    private int[] object = new int[16];
+    private int[] time = new int[16];
+    private final long[] counts = new long[CODES.length];
+
+    public DiagnosticLog() {
+
+    }
+
+    /**
+     * @param echoLimit how many warnings of each kind get printed
+     *                  (0 to print none)
+     */
+    public DiagnosticLog(int echoLimit) {
+        this.echoLimit = echoLimit;
+    }
+
+    //-----------------------------------------Global sink---------------------------------------------
+
+    /**
+     * @return the sink every warning goes to
+     */
+    public static DiagnosticSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Sends every warning from now on to another sink.
+     *
+     * @param newSink the sink to use, or null to ignore warnings
+     */
+    public static void setSink(DiagnosticSink newSink) {
+        sink = newSink == null ? (c, o, t) -> { } : newSink;
+    }
+
+    /**
+     * Reports a warning to the current sink.
+     *
+     * @param code   what kind of warning it is
+     * @param object the id of the object it happened on, or -1
+     * @param time   the time the warning happened at
+     */
+    public static void warn(Diagnostic code, int object, int time) {
+        sink.report(code, object, time);
+    }
+
+    //-----------------------------------------Recording---------------------------------------------
+
+    public synchronized void report(Diagnostic c, int o, int t) {
+        long seen = ++counts[c.ordinal()];
+        if (seen <= echoLimit) {
+            System.out.println(c.message(t));
+        } else if (seen == echoLimit + 1 && echoLimit > 0) {
+            System.out.println("WARNING: More than " + echoLimit + " warnings of the kind " +
+                    c + ".\nThe rest are only counted, see the DiagnosticLog for all of them.");
+        }
+        if (size == capacity) {
+            return;
+        }
+        if (size == code.length) {
+            int n = Math.min(size * 2, capacity);
+            code = Arrays.copyOf(code, n);
+            object = Arrays.copyOf(object, n);
+            time = Arrays.copyOf(time, n);
+        }
+        code[size] = (byte) c.ordinal();
+        object[size] = o;
+        time[size] = t;
+        size++;
+    }
+
+    /**
+     * Forgets every warning, and starts counting again.
+     */
+    public synchronized void clear() {
+        size = 0;
+        Arrays.fill(counts, 0);
+    }
+
+    //-----------------------------------------Getter / Setters---------------------------------------------
+
+    public int getEchoLimit() {
+        return echoLimit;
+    }
+
+    public void setEchoLimit(int echoLimit) {
+        this.echoLimit = echoLimit;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return how many warnings are kept as rows
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized Diagnostic getCode(int row) {
+        return CODES[code[row]];
+    }
+
+    public synchronized int getObject(int row) {
+        return object[row];
+    }
+
+    public synchronized int getTime(int row) {
+        return time[row];
+    }
+
+    /**
+     * @param c the kind of warning
+     * @return how many warnings of that kind there were (kept or not)
+     */
+    public synchronized long count(Diagnostic c) {
+        return counts[c.ordinal()];
+    }
+
+    /**
+     * @return how many warnings there were in total
+     */
+    public synchronized long total() {
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        return total;
+    }
+
+    //-----------------------------------------Report---------------------------------------------
+
+    /**
+     * Writes a summary: how many warnings of each kind there were,
+     * and the object and time of the first few.
+     *
+     * @param out where the summary gets written
+     * @param examples how many warnings of each kind to list
+     * @throws IOException if the Appendable fails to write
+     */
+    public synchronized void report(Appendable out, int examples) throws IOException {
+        out.append("Diagnostics: ").append(String.valueOf(total())).append(" warnings");
+        for (Diagnostic c : CODES) {
+            if (counts[c.ordinal()] == 0) {
+                continue;
+            }
+            out.append("\n  ").append(c.toString()).append(": ")
+                    .append(String.valueOf(counts[c.ordinal()]));
+            int listed = 0;
+            for (int row = 0; row < size && listed < examples; row++) {
+                if (code[row] == c.ordinal()) {
+                    out.append(listed == 0 ? " (" : ", ");
+                    out.append("object ").append(String.valueOf(object[row]))
+                            .append(" at ").append(String.valueOf(time[row]));
+                    listed++;
+                }
+            }
+            if (listed > 0) {
+                out.append(listed < counts[c.ordinal()] ? ", ...)" : ")");
+            }
+        }
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        try {
+            report(s, 5);
+        } catch (IOException e) {
+            //a StringBuilder never fails to write
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * DiagnosticSink.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Where warnings go. The program reports every warning to the sink
+ * set with DiagnosticLog.setSink, which by default is a DiagnosticLog
+ * that keeps them and prints the first few of each kind. Set your own
+ * to send them somewhere else, or to ignore them.
+ *
+ * Changelog:
+ * 10/18/2026: Sink created.
+ *
+ * @version 1.00
+ */
+public interface DiagnosticSink {
+
+    /**
+     * Takes one warning. This gets called in the middle of adding
+     * events, so it should be quick, and it shouldn't throw.
+     *
+     * @param code   what kind of warning it is
+     * @param object the id of the storyboard object it happened on
+     *               (see Storyboard.getId), or -1 if it's not known
+     * @param time   the time the warning happened at
+     */
+    void report(Diagnostic code, int object, int time);
+}
@@ -0,0 +1,362 @@
+/**
+ * Easing.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * The easing curves behind the "easing" number of every command.
+ * osu! knows 35 of them (0 to 34). Each one takes how far along
+ * a command is in time (0 at the start, 1 at the end) and gives back
+ * how far along the value is. Linear gives the same number back,
+ * "In" curves start slow, "Out" curves end slow, and elastic and
+ * back curves go past the end value (or before the start value)
+ * for a bit.
+ *
+ * Numbers that osu! doesn't know are treated as linear, which is
+ * also what osu! does.
+ *
+ * apply works a curve out exactly, with pow/sin/sqrt for some of
+ * them. lookup gives the same curve from a table of TABLE_SIZE + 1
+ * points per easing, made once when the class loads, and draws a
+ * straight line between the two points around t. That's a multiply,
+ * an array read and a blend no matter the easing, and it's off from
+ * apply by less than MAX_TABLE_ERROR. Circ and bounce curves don't
+ * have tables: circs get infinitely steep at one end and bounces have
+ * corners, so straight lines fit them badly there, and they're only a
+ * square root or a few multiplies to work out anyway. The array versions of lookup
+ * and interpolate go through a whole array of times in one call and
+ * write into an array you give them, so they don't make any garbage.
+ *
+ * Changelog:
+ * 10/18/2026: Easing curves added for the evaluator.
+ * 10/18/2026: Added lookup tables, and lookup/interpolate over whole arrays.
+ *
+ * @version 1.00
+ */
+
+import java.util.function.DoubleUnaryOperator;
+
+public final class Easing {
+
+    public static final int LINEAR = 0;
+    public static final int OUT = 1;
+    public static final int IN = 2;
+    public static final int IN_QUAD = 3;
+    public static final int OUT_QUAD = 4;
+    public static final int IN_OUT_QUAD = 5;
+    public static final int IN_CUBIC = 6;
+    public static final int OUT_CUBIC = 7;
+    public static final int IN_OUT_CUBIC = 8;
+    public static final int IN_QUART = 9;
+    public static final int OUT_QUART = 10;
+    public static final int IN_OUT_QUART = 11;
+    public static final int IN_QUINT = 12;
+    public static final int OUT_QUINT = 13;
+    public static final int IN_OUT_QUINT = 14;
+    public static final int IN_SINE = 15;
+    public static final int OUT_SINE = 16;
+    public static final int IN_OUT_SINE = 17;
+    public static final int IN_EXPO = 18;
+    public static final int OUT_EXPO = 19;
+    public static final int IN_OUT_EXPO = 20;
+    public static final int IN_CIRC = 21;
+    public static final int OUT_CIRC = 22;
+    public static final int IN_OUT_CIRC = 23;
+    public static final int IN_ELASTIC = 24;
+    public static final int OUT_ELASTIC = 25;
+    public static final int OUT_ELASTIC_HALF = 26;
+    public static final int OUT_ELASTIC_QUARTER = 27;
+    public static final int IN_OUT_ELASTIC = 28;
+    public static final int IN_BACK = 29;
+    public static final int OUT_BACK = 30;
+    public static final int IN_OUT_BACK = 31;
+    public static final int IN_BOUNCE = 32;
+    public static final int OUT_BOUNCE = 33;
+    public static final int IN_OUT_BOUNCE = 34;
+
+    //how many easings osu! has
+    public static final int COUNT = 35;
+
+    private static final double ELASTIC = 2 * Math.PI / .3;
+    private static final double ELASTIC2 = .3 / 4;
+    private static final double BACK = 1.70158;
+    private static final double BACK2 = BACK * 1.525;
+    private static final double BOUNCE = 1 / 2.75;
+
+    //how many steps each table has between t = 0 and t = 1
+    public static final int TABLE_SIZE = 1024;
+
+    //how far lookup can be off from apply, for any easing
+    public static final double MAX_TABLE_ERROR = 1e-4;
+
+    //tables[easing][i] = apply(easing, i / TABLE_SIZE), with one
+    //extra point past the end so lookup never has to check for t = 1
+    //(null for the easings that are worked out exactly)
+    private static final double[][] tables = new double[COUNT][];
+
+    static {
+        for (int easing = OUT; easing < COUNT; easing++) {
+            if ((easing >= IN_CIRC && easing <= IN_OUT_CIRC) || easing >= IN_BOUNCE) {
+                continue;
+            }
+            double[] table = new double[TABLE_SIZE + 2];
+            tables[easing] = table;
+            for (int i = 0; i <= TABLE_SIZE; i++) {
+                table[i] = apply(easing, (double) i / TABLE_SIZE);
+            }
+            table[TABLE_SIZE + 1] = table[TABLE_SIZE];
+        }
+    }
+
+    private Easing() {
+
+    }
+
+    /**
+     * @param easing the easing number
+     * @return the curve as a function, worked out exactly
+     */
+    public static DoubleUnaryOperator function(int easing) {
+        return t -> apply(easing, t);
+    }
+
+    /**
+     * Applies an easing curve.
+     *
+     * @param easing the easing number of the command
+     * @param t      how far along the command is in time, from 0 to 1
+     * @return how far along the value is (can go a bit under 0 or
+     * over 1 for elastic and back easings)
+     */
+    public static double apply(int easing, double t) {
+        switch (easing) {
+            case OUT:
+            case OUT_QUAD:
+                return t * (2 - t);
+            case IN:
+            case IN_QUAD:
+                return t * t;
+            case IN_OUT_QUAD:
+                if (t < .5) {
+                    return t * t * 2;
+                }
+                t -= 1;
+                return t * t * -2 + 1;
+            case IN_CUBIC:
+                return t * t * t;
+            case OUT_CUBIC:
+                t -= 1;
+                return t * t * t + 1;
+            case IN_OUT_CUBIC:
+                if (t < .5) {
+                    return t * t * t * 4;
+                }
+                t -= 1;
+                return t * t * t * 4 + 1;
+            case IN_QUART:
+                return t * t * t * t;
+            case OUT_QUART:
+                t -= 1;
+                return 1 - t * t * t * t;
+            case IN_OUT_QUART:
+                if (t < .5) {
+                    return t * t * t * t * 8;
+                }
+                t -= 1;
+                return t * t * t * t * -8 + 1;
+            case IN_QUINT:
+                return t * t * t * t * t;
+            case OUT_QUINT:
+                t -= 1;
+                return t * t * t * t * t + 1;
+            case IN_OUT_QUINT:
+                if (t < .5) {
+                    return t * t * t * t * t * 16;
+                }
+                t -= 1;
+                return t * t * t * t * t * 16 + 1;
+            case IN_SINE:
+                return 1 - Math.cos(t * Math.PI * .5);
+            case OUT_SINE:
+                return Math.sin(t * Math.PI * .5);
+            case IN_OUT_SINE:
+                return .5 - .5 * Math.cos(Math.PI * t);
+            case IN_EXPO:
+                return Math.pow(2, 10 * (t - 1));
+            case OUT_EXPO:
+                return -Math.pow(2, -10 * t) + 1;
+            case IN_OUT_EXPO:
+                if (t < .5) {
+                    return .5 * Math.pow(2, 20 * t - 10);
+                }
+                return 1 - .5 * Math.pow(2, -20 * t + 10);
+            case IN_CIRC:
+                return 1 - Math.sqrt(1 - t * t);
+            case OUT_CIRC:
+                t -= 1;
+                return Math.sqrt(1 - t * t);
+            case IN_OUT_CIRC:
+                t *= 2;
+                if (t < 1) {
+                    return .5 - .5 * Math.sqrt(1 - t * t);
+                }
+                t -= 2;
+                return .5 * Math.sqrt(1 - t * t) + .5;
+            case IN_ELASTIC:
+                return -Math.pow(2, -10 + 10 * t) * Math.sin((1 - ELASTIC2 - t) * ELASTIC);
+            case OUT_ELASTIC:
+                return Math.pow(2, -10 * t) * Math.sin((t - ELASTIC2) * ELASTIC) + 1;
+            case OUT_ELASTIC_HALF:
+                return Math.pow(2, -10 * t) * Math.sin((.5 * t - ELASTIC2) * ELASTIC) + 1;
+            case OUT_ELASTIC_QUARTER:
+                return Math.pow(2, -10 * t) * Math.sin((.25 * t - ELASTIC2) * ELASTIC) + 1;
+            case IN_OUT_ELASTIC:
+                t *= 2;
+                if (t < 1) {
+                    return -.5 * Math.pow(2, -10 + 10 * t)
+                            * Math.sin((1 - ELASTIC2 * 1.5 - t) * ELASTIC / 1.5);
+                }
+                t -= 1;
+                return .5 * Math.pow(2, -10 * t)
+                        * Math.sin((t - ELASTIC2 * 1.5) * ELASTIC / 1.5) + 1;
+            case IN_BACK:
+                return t * t * ((BACK + 1) * t - BACK);
+            case OUT_BACK:
+                t -= 1;
+                return t * t * ((BACK + 1) * t + BACK) + 1;
+            case IN_OUT_BACK:
+                t *= 2;
+                if (t < 1) {
+                    return .5 * t * t * ((BACK2 + 1) * t - BACK2);
+                }
+                t -= 2;
+                return .5 * (t * t * ((BACK2 + 1) * t + BACK2) + 2);
+            case IN_BOUNCE:
+                return 1 - outBounce(1 - t);
+            case OUT_BOUNCE:
+                return outBounce(t);
+            case IN_OUT_BOUNCE:
+                if (t < .5) {
+                    return .5 - .5 * outBounce(1 - t * 2);
+                }
+                return outBounce((t - .5) * 2) * .5 + .5;
+            default:
+                return t;
+        }
+    }
+
+    /**
+     * Works out the value of a command part way through it.
+     *
+     * @param easing the easing number of the command
+     * @param from   the value at the start
+     * @param to     the value at the end
+     * @param t      how far along the command is in time, from 0 to 1
+     * @return the value at that point
+     */
+    public static double interpolate(int easing, double from, double to, double t) {
+        return from + (to - from) * apply(easing, t);
+    }
+
+    //-----------------------------------------Tables---------------------------------------------
+
+    /**
+     * Applies an easing curve using its table. Times outside of 0 to
+     * 1 are taken as 0 or 1, since a command is never part way
+     * through outside of those.
+     *
+     * @param easing the easing number of the command
+     * @param t      how far along the command is in time, from 0 to 1
+     * @return about how far along the value is (within MAX_TABLE_ERROR)
+     */
+    public static double lookup(int easing, double t) {
+        double[] table = easing <= LINEAR || easing >= COUNT ? null : tables[easing];
+        if (table == null) {
+            return apply(easing, t < 0 ? 0 : t > 1 ? 1 : t);
+        }
+        return lookup(table, t);
+    }
+
+    /**
+     * Applies an easing curve to a whole array of times.
+     *
+     * @param easing the easing number of the commands
+     * @param t      how far along in time, from 0 to 1
+     * @param into   where the results go (can be t itself)
+     * @param count  how many of the times to do, from the start of t
+     */
+    public static void lookup(int easing, double[] t, double[] into, int count) {
+        double[] table = easing <= LINEAR || easing >= COUNT ? null : tables[easing];
+        if (table == null) {
+            for (int i = 0; i < count; i++) {
+                double x = t[i];
+                into[i] = apply(easing, x < 0 ? 0 : x > 1 ? 1 : x);
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            into[i] = lookup(table, t[i]);
+        }
+    }
+
+    /**
+     * Works out the value of a command at a whole array of points,
+     * using the tables.
+     *
+     * @param easing the easing number of the command
+     * @param from   the value at the start
+     * @param to     the value at the end
+     * @param t      how far along in time, from 0 to 1
+     * @param into   where the values go (can be t itself)
+     * @param count  how many of the times to do, from the start of t
+     */
+    public static void interpolate(int easing, double from, double to,
+                                   double[] t, double[] into, int count) {
+        lookup(easing, t, into, count);
+        double change = to - from;
+        for (int i = 0; i < count; i++) {
+            into[i] = from + change * into[i];
+        }
+    }
+
+    private static double lookup(double[] table, double t) {
+        if (!(t > 0)) {
+            return table[0];
+        }
+        if (t >= 1) {
+            return table[TABLE_SIZE];
+        }
+        double x = t * TABLE_SIZE;
+        int i = (int) x;
+        double a = table[i];
+        return a + (table[i + 1] - a) * (x - i);
+    }
+
+    /**
+     * @param easing the easing number
+     * @return true if the curve goes outside of 0 to 1 on the way
+     * (the elastic and back easings), so the value can go past the
+     * start or end value
+     */
+    public static boolean overshoots(int easing) {
+        return easing >= IN_ELASTIC && easing <= IN_OUT_BACK;
+    }
+
+    private static double outBounce(double t) {
+        if (t < BOUNCE) {
+            return 7.5625 * t * t;
+        }
+        if (t < 2 * BOUNCE) {
+            t -= 1.5 * BOUNCE;
+            return 7.5625 * t * t + .75;
+        }
+        if (t < 2.5 * BOUNCE) {
+            t -= 2.25 * BOUNCE;
+            return 7.5625 * t * t + .9375;
+        }
+        t -= 2.625 * BOUNCE;
+        return 7.5625 * t * t + .984375;
+    }
+}
@@ -0,0 +1,571 @@
+/**
+ * EventColumns.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * The compact way of storing a sprite's events. Instead of one
+ * FadeEvent/MoveEvent/... object per event sitting in a TreeSet
+ * (object header, fields, tree node, ...), every event here is one
+ * "row" spread over a few parallel primitive arrays:
+ *
+ * start/end times (int), easing and event type (byte), and an
+ * offset into a shared value array holding the event's values
+ * (2 values for a fade, 4 for a move, 6 for a color, and so on).
+ * Events with whole-number values (moves and colors) use an int
+ * array, the rest use a double array.
+ *
+ * That's 14 bytes plus 4 or 8 per value for each event, instead
+ * of around 90 for an event object and its TreeSet node, and
+ * serializing walks straight through arrays instead of chasing
+ * pointers around the heap.
+ *
+ * Rows are kept in the order they were added, and sorted by start
+ * time only when someone needs them in order (and only if they came
+ * in out of order). Events that can't be stored as plain numbers
+ * (a ParameterEvent with an odd type, for example) are kept as objects
+ * in a side array, so nothing gets lost.
+ *
+ * Changelog:
+ * 10/18/2026: Created for the compact storage mode of Sprite.
+ * 10/18/2026: Rows remember if they still need previous values, instead of
+ * being looked up with findPrevious.
+ * 10/18/2026: order() sorts by start time and then type, like compareTo.
+ * 10/18/2026: order() uses a parallel sort for big batches (bulk mode of Storyboard).
+ * 10/18/2026: Added canonicalOrder for merging rows that came from several threads.
+ * 10/18/2026: Rows also remember if they took previous values.
+ *
+ * @version 1.00
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public class EventColumns {
+
+    private static final EventType[] TYPES = EventType.values();
+
+    //how the row number fits in under the type in a sort key
+    private static final int ROW_BITS = 27;
+    private static final int ROW_MASK = (1 << ROW_BITS) - 1;
+
+    //from this many rows on, order() sorts on all cores
+    private static final int PARALLEL_SORT = 1 << 16;
+
+    //the event line tag for each event type, by ordinal
+    private static final String[] TAGS = new String[TYPES.length];
+
+    static {
+        for (EventType t : TYPES) {
+            TAGS[t.ordinal()] = t.toString();
+        }
+        TAGS[EventType.PH.ordinal()] = "P";
+        TAGS[EventType.PV.ordinal()] = "P";
+        TAGS[EventType.PA.ordinal()] = "P";
+    }
+
+    private int size = 0;
+    private int[] start = new int[16];
+    private int[] end = new int[16];
+    private byte[] easing = new byte[16];
+    private byte[] type = new byte[16];
+    private int[] offset = new int[16];
+    private double[] values = new double[32];
+    private int valueCount = 0;
+    private int[] intValues = new int[32];
+    private int intValueCount = 0;
+
+    //only made when an event doesn't fit into the primitive columns
+    private StoryboardEvent[] boxed;
+
+    //rows still waiting for their previous values, only made when needed
+    private BitSet usesPrevious;
+
+    //rows that already got their previous values, only made when needed
+    private BitSet tookPrevious;
+
+    //rows in start-time order, or null when rows are already in order
+    private int[] order;
+    private boolean sorted = true;
+
+    //-----------------------------------------Adding---------------------------------------------
+
+    /**
+     * Copies an event into the columns. The event object isn't kept,
+     * so changing it afterwards doesn't change what's stored.
+     *
+     * @param e the event to store
+     */
+    public void add(StoryboardEvent e) {
+        EventType t = e.getEventType();
+        int slots = slots(t);
+        boolean primitive = slots >= 0 && e.getEasing() >= 0
+                && e.getEasing() <= Byte.MAX_VALUE && e.getClass() == classOf(t);
+
+        if (size == start.length) {
+            int n = size * 2;
+            start = Arrays.copyOf(start, n);
+            end = Arrays.copyOf(end, n);
+            easing = Arrays.copyOf(easing, n);
+            type = Arrays.copyOf(type, n);
+            offset = Arrays.copyOf(offset, n);
+            if (boxed != null) {
+                boxed = Arrays.copyOf(boxed, n);
+            }
+        }
+        if (size > 0 && sorted && (e.getStartTime() < start[size - 1]
+                || (e.getStartTime() == start[size - 1]
+                && t.ordinal() < getEventType(size - 1).ordinal()))) {
+            sorted = false;
+        }
+        order = null;
+
+        start[size] = e.getStartTime();
+        end[size] = e.getEndTime();
+        easing[size] = (byte) e.getEasing();
+        if (primitive && isIntType(t)) {
+            type[size] = (byte) t.ordinal();
+            offset[size] = intValueCount;
+            if (intValueCount + slots > intValues.length) {
+                intValues = Arrays.copyOf(intValues,
+                        Math.max(intValues.length * 2, intValueCount + slots));
+            }
+            encode(e, intValues, intValueCount);
+            intValueCount += slots;
+        } else if (primitive) {
+            type[size] = (byte) t.ordinal();
+            offset[size] = valueCount;
+            if (valueCount + slots > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, valueCount + slots));
+            }
+            encode(e, values, valueCount);
+            valueCount += slots;
+        } else {
+            type[size] = (byte) EventType.NULL.ordinal();
+            if (boxed == null) {
+                boxed = new StoryboardEvent[start.length];
+            }
+            boxed[size] = e;
+        }
+        if (e.usesPrevious()) {
+            if (usesPrevious == null) {
+                usesPrevious = new BitSet();
+            }
+            usesPrevious.set(size);
+        }
+        if (e.tookPrevious()) {
+            if (tookPrevious == null) {
+                tookPrevious = new BitSet();
+            }
+            tookPrevious.set(size);
+        }
+        size++;
+    }
+
+    //-----------------------------------------Reading---------------------------------------------
+
+    public int size() {
+        return size;
+    }
+
+    public int getStartTime(int row) {
+        return start[row];
+    }
+
+    public int getEndTime(int row) {
+        return end[row];
+    }
+
+    public EventType getEventType(int row) {
+        if (boxed != null && boxed[row] != null) {
+            return boxed[row].getEventType();
+        }
+        return TYPES[type[row]];
+    }
+
+    /**
+     * Gives back the rows in the same order StoryboardEvent.compareTo
+     * puts events in: by start time, then event type (rows with the
+     * same start time and type stay in the order they were added).
+     *
+     * @return row numbers in start-time order
+     */
+    public int[] order() {
+        if (order == null) {
+            order = new int[size];
+            if (sorted) {
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+            } else if (size <= ROW_MASK) {
+                //start time, type and row packed into one long each
+                long[] keys = new long[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = ((long) start[i] << 32)
+                            | ((long) getEventType(i).ordinal() << ROW_BITS) | i;
+                }
+                if (size >= PARALLEL_SORT) {
+                    Arrays.parallelSort(keys);
+                } else {
+                    Arrays.sort(keys);
+                }
+                for (int i = 0; i < size; i++) {
+                    order[i] = (int) (keys[i] & ROW_MASK);
+                }
+            } else {
+                Integer[] rows = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    rows[i] = i;
+                }
+                Arrays.sort(rows, (a, b) -> {
+                    int c = Integer.compare(start[a], start[b]);
+                    if (c == 0) {
+                        c = getEventType(a).compareTo(getEventType(b));
+                    }
+                    return c != 0 ? c : Integer.compare(a, b);
+                });
+                for (int i = 0; i < size; i++) {
+                    order[i] = rows[i];
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Same as order(), except that rows with the same start time and
+     * type are put in order of what's in them (end time, whether they
+     * take previous values, then the rest of the event line) instead of
+     * the order they were added in. Rows that came in from several
+     * threads at once then come out in the same order every run.
+     *
+     * @return row numbers in start-time order, ties broken by content
+     */
+    public int[] canonicalOrder() {
+        int[] rows = order().clone();
+        int i = 0;
+        while (i < size) {
+            int j = i + 1;
+            while (j < size && start[rows[j]] == start[rows[i]]
+                    && getEventType(rows[j]) == getEventType(rows[i])) {
+                j++;
+            }
+            if (j - i > 1) {
+                Integer[] tied = new Integer[j - i];
+                for (int k = i; k < j; k++) {
+                    tied[k - i] = rows[k];
+                }
+                Arrays.sort(tied, this::compareContent);
+                for (int k = i; k < j; k++) {
+                    rows[k] = tied[k - i];
+                }
+            }
+            i = j;
+        }
+        return rows;
+    }
+
+    //orders two rows with the same start time and type by what's in them
+    private int compareContent(int a, int b) {
+        int c = Integer.compare(end[a], end[b]);
+        if (c == 0) {
+            c = Boolean.compare(takesPrevious(a), takesPrevious(b));
+        }
+        if (c == 0) {
+            c = line(a).compareTo(line(b));
+        }
+        return c;
+    }
+
+    private boolean takesPrevious(int row) {
+        return usesPrevious != null && usesPrevious.get(row);
+    }
+
+    private String line(int row) {
+        StringBuilder s = new StringBuilder();
+        try {
+            writeRow(s, row);
+        } catch (IOException e) {
+            //a StringBuilder never fails to write
+        }
+        return s.toString();
+    }
+
+    /**
+     * Builds a fresh event object for a row. The object is a copy,
+     * changing it doesn't change the stored row.
+     *
+     * @param row the row to turn back into an event
+     * @return a new event with the row's values
+     */
+    public StoryboardEvent get(int row) {
+        StoryboardEvent e = build(row);
+        if (e != null && usesPrevious != null && usesPrevious.get(row)) {
+            e.setUsesPrevious(true);
+        }
+        if (e != null && tookPrevious != null && tookPrevious.get(row)) {
+            e.setTookPrevious(true);
+        }
+        return e;
+    }
+
+    private StoryboardEvent build(int row) {
+        if (boxed != null && boxed[row] != null) {
+            return boxed[row];
+        }
+        int o = offset[row];
+        int s = start[row];
+        int t = end[row];
+        int ease = easing[row];
+        switch (TYPES[type[row]]) {
+            case F:
+                return new FadeEvent(ease, s, t, values[o], values[o + 1]);
+            case M:
+                return new MoveEvent(ease, s, t, intValues[o], intValues[o + 1],
+                        intValues[o + 2], intValues[o + 3]);
+            case MX: {
+                MoveEvent m = new MoveXEvent(ease, s, t, intValues[o], intValues[o + 2]);
+                m.startY = intValues[o + 1];
+                m.endY = intValues[o + 3];
+                return m;
+            }
+            case MY: {
+                MoveEvent m = new MoveYEvent(ease, s, t, intValues[o + 1], intValues[o + 3]);
+                m.startX = intValues[o];
+                m.endX = intValues[o + 2];
+                return m;
+            }
+            case S:
+                return new ScaleEvent(ease, s, t, values[o], values[o + 1]);
+            case V:
+                return new VectorEvent(ease, s, t, values[o], values[o + 1],
+                        values[o + 2], values[o + 3]);
+            case R:
+                return new RotationEvent(ease, s, t, values[o], values[o + 1]);
+            case C:
+                return new ColorEvent(ease, s, t, intValues[o], intValues[o + 1],
+                        intValues[o + 2], intValues[o + 3], intValues[o + 4],
+                        intValues[o + 5]);
+            case PH:
+                return new ParameterEvent(ease, s, t, "H");
+            case PV:
+                return new ParameterEvent(ease, s, t, "V");
+            case PA:
+                return new ParameterEvent(ease, s, t, "A");
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return a fresh event object for every row, in start-time order
+     */
+    public List<StoryboardEvent> toList() {
+        int[] rows = order();
+        List<StoryboardEvent> list = new ArrayList<StoryboardEvent>(size);
+        for (int row : rows) {
+            list.add(get(row));
+        }
+        return list;
+    }
+
+    //-----------------------------------------Writing---------------------------------------------
+
+    /**
+     * Writes one row's event line, exactly like the matching event
+     * class's writeTo would, but straight from the arrays.
+     *
+     * @param out where the event line gets written
+     * @param row the row to write
+     * @throws IOException if the Appendable fails to write
+     */
+    public void writeRow(Appendable out, int row) throws IOException {
+        if (boxed != null && boxed[row] != null) {
+            boxed[row].writeTo(out);
+            return;
+        }
+        int t = type[row];
+        int o = offset[row];
+        out.append(' ').append(TAGS[t]);
+        OsbFormat.field(out, easing[row]);
+        OsbFormat.field(out, start[row]);
+        OsbFormat.field(out, end[row]);
+        switch (TYPES[t]) {
+            case M:
+                for (int i = 0; i < 4; i++) {
+                    OsbFormat.field(out, intValues[o + i]);
+                }
+                break;
+            case MX:
+                OsbFormat.field(out, intValues[o]);
+                OsbFormat.field(out, intValues[o + 2]);
+                break;
+            case MY:
+                OsbFormat.field(out, intValues[o + 1]);
+                OsbFormat.field(out, intValues[o + 3]);
+                break;
+            case C:
+                for (int i = 0; i < 6; i++) {
+                    OsbFormat.field(out, intValues[o + i]);
+                }
+                break;
+            case PH:
+                out.append(",H");
+                break;
+            case PV:
+                out.append(",V");
+                break;
+            case PA:
+                out.append(",A");
+                break;
+            default:
+                for (int i = 0, n = slots(TYPES[t]); i < n; i++) {
+                    OsbFormat.field(out, values[o + i]);
+                }
+                break;
+        }
+    }
+
+    //-----------------------------------------Helpers---------------------------------------------
+
+    /**
+     * @param t the event type
+     * @return how many double slots an event of this type takes
+     */
+    static int slots(EventType t) {
+        switch (t) {
+            case F:
+            case S:
+            case R:
+                return 2;
+            case M:
+            case MX:
+            case MY:
+            case V:
+                return 4;
+            case C:
+                return 6;
+            case PH:
+            case PV:
+            case PA:
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * @param t the event type
+     * @return true if the type's values are whole numbers (moves, colors)
+     */
+    static boolean isIntType(EventType t) {
+        return t == EventType.M || t == EventType.MX || t == EventType.MY
+                || t == EventType.C;
+    }
+
+    /**
+     * Writes the values of a fade, scale, vector scale or rotation
+     * into a double array, in the same layout the columns use.
+     *
+     * @param e    the event
+     * @param into where to put the values
+     * @param at   where in the array to start
+     */
+    static void encode(StoryboardEvent e, double[] into, int at) {
+        switch (e.getEventType()) {
+            case F: {
+                FadeEvent f = (FadeEvent) e;
+                into[at] = f.startingOpacity;
+                into[at + 1] = f.endingOpacity;
+                break;
+            }
+            case S: {
+                ScaleEvent s = (ScaleEvent) e;
+                into[at] = s.startScaling;
+                into[at + 1] = s.endScaling;
+                break;
+            }
+            case V: {
+                VectorEvent v = (VectorEvent) e;
+                into[at] = v.startX;
+                into[at + 1] = v.startY;
+                into[at + 2] = v.endX;
+                into[at + 3] = v.endY;
+                break;
+            }
+            case R: {
+                RotationEvent r = (RotationEvent) e;
+                into[at] = r.startAngle;
+                into[at + 1] = r.endAngle;
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Writes the values of a move or color into an int array,
+     * in the same layout the columns use.
+     *
+     * @param e    the event
+     * @param into where to put the values
+     * @param at   where in the array to start
+     */
+    static void encode(StoryboardEvent e, int[] into, int at) {
+        switch (e.getEventType()) {
+            case M:
+            case MX:
+            case MY: {
+                MoveEvent m = (MoveEvent) e;
+                into[at] = m.startX;
+                into[at + 1] = m.startY;
+                into[at + 2] = m.endX;
+                into[at + 3] = m.endY;
+                break;
+            }
+            case C: {
+                ColorEvent c = (ColorEvent) e;
+                into[at] = c.r1;
+                into[at + 1] = c.g1;
+                into[at + 2] = c.b1;
+                into[at + 3] = c.r2;
+                into[at + 4] = c.g2;
+                into[at + 5] = c.b2;
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    //the class that stores each event type, used to spot subclasses
+    //that might carry more than the columns can hold
+    private static Class<?> classOf(EventType t) {
+        switch (t) {
+            case F:
+                return FadeEvent.class;
+            case M:
+                return MoveEvent.class;
+            case MX:
+                return MoveXEvent.class;
+            case MY:
+                return MoveYEvent.class;
+            case S:
+                return ScaleEvent.class;
+            case V:
+                return VectorEvent.class;
+            case R:
+                return RotationEvent.class;
+            case C:
+                return ColorEvent.class;
+            default:
+                return ParameterEvent.class;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/**
+ * EventIndex.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * An interval index over the events of ONE event type on ONE
+ * storyboard object. Storyboard keeps one of these per EventType,
+ * so that overlap checking and duplicate checking only look at
+ * events of the same type, and only look at the few events that
+ * could actually collide instead of the whole compilation.
+ *
+ * Internally this is a treap (a binary search tree that stays
+ * balanced by giving every node a random priority) ordered by
+ * start time, where every node also remembers the largest end time
+ * found anywhere in its subtree. That "max end" lets us answer
+ * "does anything that started before time t still run past t?"
+ * without visiting the whole tree, so inserts and both checks
+ * are O(log n) on average.
+ *
+ * The index only stores start and end times, not the events
+ * themselves, and keeps its nodes in plain int arrays, so it stays
+ * small even for huge sprites.
+ *
+ * Changelog:
+ * 10/18/2026: Index created to replace the full scan in addToCompilation.
+ * 10/18/2026: Added addSorted for building the index from a sorted batch.
+ *
+ * @version 1.00
+ */
+
+import java.util.Arrays;
+
+public class EventIndex {
+
+    //"no node" marker for the child links
+    private static final int NIL = -1;
+
+    //the treap's nodes, stored as parallel int arrays rather than one
+    //object per node, so each node only costs 20 bytes
+    private int[] start = new int[8];
+    private int[] end = new int[8];
+    private int[] maxEnd = new int[8];
+    private int[] left = new int[8];
+    private int[] right = new int[8];
+
+    private int root = NIL;
+    private int size = 0;
+
+    //-----------------------------------------Queries---------------------------------------------
+
+    /**
+     * @return the number of intervals in this index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether an event of this type already starts at
+     * the given time.
+     *
+     * @param time the start time to look for
+     * @return true if some interval in the index starts at that time
+     */
+    public boolean containsStart(int time) {
+        int n = root;
+        while (n != NIL) {
+            if (time == start[n]) {
+                return true;
+            }
+            n = time < start[n] ? left[n] : right[n];
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the interval [from, to] overlaps with
+     * anything in the index, using the same rules as
+     * StoryboardEvent.overlapCheck: either another event starts
+     * strictly inside this one, or this one starts strictly inside
+     * another event.
+     *
+     * @param from the start time of the new event
+     * @param to   the end time of the new event
+     * @return true if the new event overlaps an indexed one
+     */
+    public boolean overlaps(int from, int to) {
+        return startsInside(from, to) || runsPast(from);
+    }
+
+    /**
+     * Is there an interval whose start lies strictly between
+     * from and to? Found by looking for the first start after
+     * "from" and checking if it's before "to".
+     */
+    private boolean startsInside(int from, int to) {
+        int n = root;
+        int best = Integer.MAX_VALUE;
+        boolean found = false;
+        while (n != NIL) {
+            if (start[n] > from) {
+                best = start[n];
+                found = true;
+                n = left[n];
+            } else {
+                n = right[n];
+            }
+        }
+        return found && best < to;
+    }
+
+    /**
+     * Is there an interval that starts strictly before time t and
+     * ends strictly after it? Every left subtree of a node that starts
+     * before t only holds earlier starts, so its maxEnd answers the
+     * question for the whole subtree at once.
+     */
+    private boolean runsPast(int t) {
+        int n = root;
+        while (n != NIL) {
+            if (start[n] < t) {
+                if (end[n] > t) {
+                    return true;
+                }
+                if (left[n] != NIL && maxEnd[left[n]] > t) {
+                    return true;
+                }
+                n = right[n];
+            } else {
+                n = left[n];
+            }
+        }
+        return false;
+    }
+
+    //-----------------------------------------Updates---------------------------------------------
+
+    /**
+     * Adds an interval to the index.
+     *
+     * @param from the start time of the event
+     * @param to   the end time of the event
+     */
+    public void add(int from, int to) {
+        if (size == start.length) {
+            int n = size * 2;
+            start = Arrays.copyOf(start, n);
+            end = Arrays.copyOf(end, n);
+            maxEnd = Arrays.copyOf(maxEnd, n);
+            left = Arrays.copyOf(left, n);
+            right = Arrays.copyOf(right, n);
+        }
+        int node = size++;
+        start[node] = from;
+        end[node] = to;
+        maxEnd[node] = to;
+        left[node] = NIL;
+        right[node] = NIL;
+        root = insert(root, node);
+    }
+
+    /**
+     * Adds a batch of intervals that are already sorted by start
+     * time. If the index is empty, the tree gets built in one go in
+     * O(n) (as a Cartesian tree on the node priorities, which gives the
+     * exact same treap as adding them one by one), instead of n inserts.
+     *
+     * @param from  the start times, sorted
+     * @param to    the end times
+     * @param count how many intervals to take from the arrays
+     */
+    public void addSorted(int[] from, int[] to, int count) {
+        if (size != 0) {
+            for (int i = 0; i < count; i++) {
+                add(from[i], to[i]);
+            }
+            return;
+        }
+        if (count > start.length) {
+            start = new int[count];
+            end = new int[count];
+            maxEnd = new int[count];
+            left = new int[count];
+            right = new int[count];
+        }
+        System.arraycopy(from, 0, start, 0, count);
+        System.arraycopy(to, 0, end, 0, count);
+
+        //the right spine of the tree built so far
+        int[] spine = new int[count];
+        int top = -1;
+        for (int n = 0; n < count; n++) {
+            int last = NIL;
+            while (top >= 0 && priority(spine[top]) < priority(n)) {
+                last = spine[top--];
+            }
+            left[n] = last;
+            right[n] = NIL;
+            if (top >= 0) {
+                right[spine[top]] = n;
+            }
+            spine[++top] = n;
+        }
+        size = count;
+        root = count == 0 ? NIL : spine[0];
+        fix(root);
+    }
+
+    //works out maxEnd for a whole subtree, children first
+    private int fix(int n) {
+        if (n == NIL) {
+            return Integer.MIN_VALUE;
+        }
+        int m = Math.max(end[n], Math.max(fix(left[n]), fix(right[n])));
+        maxEnd[n] = m;
+        return m;
+    }
+
+    /**
+     * Empties the index.
+     */
+    public void clear() {
+        root = NIL;
+        size = 0;
+    }
+
+    private int insert(int n, int fresh) {
+        if (n == NIL) {
+            return fresh;
+        }
+        if (start[fresh] < start[n]) {
+            left[n] = insert(left[n], fresh);
+            if (priority(left[n]) > priority(n)) {
+                n = rotateRight(n);
+            }
+        } else {
+            right[n] = insert(right[n], fresh);
+            if (priority(right[n]) > priority(n)) {
+                n = rotateLeft(n);
+            }
+        }
+        update(n);
+        return n;
+    }
+
+    private int rotateRight(int n) {
+        int l = left[n];
+        left[n] = right[l];
+        right[l] = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    private int rotateLeft(int n) {
+        int r = right[n];
+        right[n] = left[r];
+        left[r] = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    //recomputes the max end time of a node from its children
+    private void update(int n) {
+        int m = end[n];
+        if (left[n] != NIL && maxEnd[left[n]] > m) {
+            m = maxEnd[left[n]];
+        }
+        if (right[n] != NIL && maxEnd[right[n]] > m) {
+            m = maxEnd[right[n]];
+        }
+        maxEnd[n] = m;
+    }
+
+    //a node's random priority, worked out from its slot number with a
+    //hash instead of being stored. Fixed, so the shape of the tree
+    //(and so the run time) doesn't change run to run.
+    private static int priority(int node) {
+        int h = node * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * EventStripes.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Lets several threads add events to one storyboard object at the
+ * same time (see Storyboard.beginConcurrent). The events go into a
+ * handful of EventColumns buffers ("stripes"), each with its own lock,
+ * and each thread always uses the stripe its thread id points to. So
+ * threads almost never wait on each other, and each add is only a
+ * copy into some arrays.
+ *
+ * When the object gets sealed, drain() puts all of the stripes
+ * together into one buffer. Which stripe an event landed in depends
+ * on the threads, so the object sorts the merged rows with
+ * EventColumns.canonicalOrder, which doesn't care where a row came from.
+ *
+ * Changelog:
+ * 10/18/2026: Stripes created for concurrent mode.
+ *
+ * @version 1.00
+ */
+public class EventStripes {
+
+    private final EventColumns[] stripes;
+    private final Object[] locks;
+
+    /**
+     * Makes two stripes for every core.
+     */
+    public EventStripes() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param count how many stripes to spread the events over
+     */
+    public EventStripes(int count) {
+        stripes = new EventColumns[Math.max(count, 1)];
+        locks = new Object[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new EventColumns();
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Copies an event into the calling thread's stripe. Safe to call
+     * from any number of threads at once.
+     *
+     * @param e the event to add
+     */
+    public void add(StoryboardEvent e) {
+        int i = (int) (Thread.currentThread().getId() % stripes.length);
+        synchronized (locks[i]) {
+            stripes[i].add(e);
+        }
+    }
+
+    /**
+     * Takes every event out of the stripes.
+     *
+     * @return one buffer with all of the events, in no particular order
+     */
+    public EventColumns drain() {
+        EventColumns all = new EventColumns();
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (locks[i]) {
+                EventColumns stripe = stripes[i];
+                for (int row = 0; row < stripe.size(); row++) {
+                    all.add(stripe.get(row));
+                }
+                stripes[i] = new EventColumns();
+            }
+        }
+        return all;
+    }
+}
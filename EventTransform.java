@@ -0,0 +1,270 @@
+/**
+ * EventTransform.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Moves events in time and space. An object that plays a shared
+ * Timeline keeps one of these, so lots of objects can play the same
+ * commands at different times and places without each having a copy
+ * of them (see Storyboard.useTimeline and instance).
+ *
+ * Times: t becomes t * timeScale + timeShift, so the events can be
+ * sped up or slowed down as well as moved.
+ *
+ * Positions (moves, moveXs and moveYs): x becomes x + dx (or
+ * dx - x when mirrored), y becomes y + dy. The size of the object
+ * doesn't change its position.
+ *
+ * Looks: scales and vector scales are multiplied by "scale", and
+ * "rotation" (in radians) is added to every rotation (which gets
+ * turned around first when mirrored). A mirrored object's image is
+ * flipped too. Objects that don't have the commands for a change
+ * (no scales, no rotations, no flips) get a command over their whole
+ * lifetime for it when they're written, see Timeline.
+ *
+ * Transforms never change, the "with" methods and then() make new ones.
+ *
+ * Changelog:
+ * 10/18/2026: Transform created for shared timelines.
+ * 10/18/2026: Added time scaling, mirroring, scaling and rotation for instances.
+ * 10/18/2026: Transformed events keep their tookPrevious flag.
+ *
+ * @version 1.00
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class EventTransform {
+
+    //leaves everything as it is
+    public static final EventTransform IDENTITY =
+            new EventTransform(1, 0, false, 0, 0, 1, 0);
+
+    private final double timeScale;
+    private final int timeShift;
+    private final boolean mirror;
+    private final int dx;
+    private final int dy;
+    private final double scale;
+    private final double rotation;
+
+    private EventTransform(double timeScale, int timeShift, boolean mirror, int dx, int dy,
+                           double scale, double rotation) {
+        if (!(timeScale > 0)) {
+            throw new IllegalArgumentException("The time scale has to be above 0, not "
+                    + timeScale + ".");
+        }
+        this.timeScale = timeScale;
+        this.timeShift = timeShift;
+        this.mirror = mirror;
+        this.dx = dx;
+        this.dy = dy;
+        this.scale = scale;
+        this.rotation = rotation;
+    }
+
+    /**
+     * @param timeShift how much later everything happens, in milliseconds
+     * @param dx        how far to the right every position goes
+     * @param dy        how far down every position goes
+     * @return the transform
+     */
+    public static EventTransform shift(int timeShift, int dx, int dy) {
+        return new EventTransform(1, timeShift, false, dx, dy, 1, 0);
+    }
+
+    public EventTransform withTimeShift(int timeShift) {
+        return new EventTransform(timeScale, timeShift, mirror, dx, dy, scale, rotation);
+    }
+
+    /**
+     * @param timeScale how much longer everything takes (2 is half
+     *                  speed), has to be above 0
+     * @return the changed transform
+     */
+    public EventTransform withTimeScale(double timeScale) {
+        return new EventTransform(timeScale, timeShift, mirror, dx, dy, scale, rotation);
+    }
+
+    public EventTransform withOffset(int dx, int dy) {
+        return new EventTransform(timeScale, timeShift, mirror, dx, dy, scale, rotation);
+    }
+
+    public EventTransform withScale(double scale) {
+        return new EventTransform(timeScale, timeShift, mirror, dx, dy, scale, rotation);
+    }
+
+    /**
+     * @param rotation how much to turn the object by, in radians
+     * @return the changed transform
+     */
+    public EventTransform withRotation(double rotation) {
+        return new EventTransform(timeScale, timeShift, mirror, dx, dy, scale, rotation);
+    }
+
+    /**
+     * @return this transform, then a mirror across the middle of the
+     * screen (x = 320), which flips the image too
+     */
+    public EventTransform mirrored() {
+        return then(new EventTransform(1, 0, true, SpriteCuller.SCREEN_WIDTH, 0, 1, 0));
+    }
+
+    /**
+     * @param next the transform to do afterwards
+     * @return one transform that does this one, then next (the times
+     * can be off by a millisecond from doing both, from rounding)
+     */
+    public EventTransform then(EventTransform next) {
+        return new EventTransform(timeScale * next.timeScale,
+                (int) Math.round(timeShift * next.timeScale) + next.timeShift,
+                mirror != next.mirror,
+                (next.mirror ? -dx : dx) + next.dx,
+                dy + next.dy,
+                scale * next.scale,
+                (next.mirror ? -rotation : rotation) + next.rotation);
+    }
+
+    public double getTimeScale() {
+        return timeScale;
+    }
+
+    public int getTimeShift() {
+        return timeShift;
+    }
+
+    public boolean isMirrored() {
+        return mirror;
+    }
+
+    public int getDx() {
+        return dx;
+    }
+
+    public int getDy() {
+        return dy;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public double getRotation() {
+        return rotation;
+    }
+
+    public boolean isIdentity() {
+        return equals(IDENTITY);
+    }
+
+    //-----------------------------------------Applying---------------------------------------------
+
+    /**
+     * @param time a time in milliseconds
+     * @return where the transform puts that time
+     */
+    public int time(int time) {
+        return (timeScale == 1 ? time : (int) Math.round(time * timeScale)) + timeShift;
+    }
+
+    /**
+     * @param x an x position
+     * @return where the transform puts it
+     */
+    public int x(int x) {
+        return (mirror ? -x : x) + dx;
+    }
+
+    /**
+     * @param y a y position
+     * @return where the transform puts it
+     */
+    public int y(int y) {
+        return y + dy;
+    }
+
+    /**
+     * Makes a transformed copy of an event. The event itself isn't
+     * changed.
+     *
+     * @param e the event
+     * @return the moved copy
+     */
+    public StoryboardEvent apply(StoryboardEvent e) {
+        if (e instanceof LoopEvent) {
+            //the commands in a loop are timed from the loop's start,
+            //so they only get stretched, not shifted
+            LoopEvent loop = (LoopEvent) e;
+            EventTransform inside = withTimeShift(0);
+            List<StoryboardEvent> commands = new ArrayList<StoryboardEvent>();
+            for (StoryboardEvent c : loop.getCommands()) {
+                commands.add(inside.apply(c));
+            }
+            return new LoopEvent(time(loop.getStartTime()), loop.getLoopCount(), commands);
+        }
+        int n = EventValues.channels(e.getEventType());
+        if (n < 0) {
+            return e;
+        }
+        double[] from = new double[n];
+        double[] to = new double[n];
+        EventValues.startValues(e, from);
+        EventValues.endValues(e, to);
+        switch (e.getEventType()) {
+            case M:
+                from[0] = x((int) from[0]);
+                to[0] = x((int) to[0]);
+                from[1] += dy;
+                to[1] += dy;
+                break;
+            case MX:
+                from[0] = x((int) from[0]);
+                to[0] = x((int) to[0]);
+                break;
+            case MY:
+                from[0] += dy;
+                to[0] += dy;
+                break;
+            case S:
+            case V:
+                for (int i = 0; i < n; i++) {
+                    from[i] *= scale;
+                    to[i] *= scale;
+                }
+                break;
+            case R:
+                from[0] = (mirror ? -from[0] : from[0]) + rotation;
+                to[0] = (mirror ? -to[0] : to[0]) + rotation;
+                break;
+            default:
+                break;
+        }
+        StoryboardEvent moved = EventValues.make(e.getEventType(), e.getEasing(),
+                time(e.getStartTime()), time(e.getEndTime()), from, to);
+        moved.setTookPrevious(e.tookPrevious());
+        return moved;
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof EventTransform)) {
+            return false;
+        }
+        EventTransform t = (EventTransform) o;
+        return timeScale == t.timeScale && timeShift == t.timeShift && mirror == t.mirror
+                && dx == t.dx && dy == t.dy && scale == t.scale && rotation == t.rotation;
+    }
+
+    public int hashCode() {
+        int h = Double.hashCode(timeScale);
+        h = h * 31 + timeShift;
+        h = h * 31 + (mirror ? 1 : 0);
+        h = h * 31 + dx;
+        h = h * 31 + dy;
+        h = h * 31 + Double.hashCode(scale);
+        return h * 31 + Double.hashCode(rotation);
+    }
+}
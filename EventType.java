@@ -2,5 +2,5 @@
  * Created by Jinsong on 1/26/2015.
  */
 public enum EventType {
-    OBJECT, F, M, MX, MY, S, V, R, C, PH, PV, PA, NULL
+    OBJECT, F, M, MX, MY, S, V, R, C, PH, PV, PA, L, NULL
 }
@@ -25,10 +25,13 @@
  *
  * Changelog:
  * 1/27/2015: Finished draft.
+ * 10/18/2026: previousChecking removed, PreviousResolver fills in the previous values.
  *
  * @author Erina
  * @version 1.00
  */
+import java.io.IOException;
+
 public class FadeEvent extends StoryboardEvent {
 
     protected double startingOpacity = 0;
@@ -64,33 +67,15 @@ public class FadeEvent extends StoryboardEvent {
     }
 
     /**
-     * Previous checking for FadeEvent
-     * @param o storyboard event to be compared with, and to
-     *          attempt to extract previous values out of
-     * @return true if values were obtained, false if this event
-     * cannot take the previous values from the other (maybe
-     * due to the fact that the other event doesn't come previous
-     * to current, or if the event type aren't the same).
-     */
-    public boolean previousChecking(StoryboardEvent o) {
-        if (o instanceof FadeEvent) {
-            FadeEvent f = (FadeEvent) o;
-            if (f.getEndTime() <= this.startTime) {
-                this.startingOpacity = f.getEndingOpacity();
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Returns the event line that will be printed into the
+     * Writes the event line that will be printed into the
      * .osb file
      *
-     * @return String with the event line
+     * @param out where the event line gets written
+     * @throws IOException if the Appendable fails to write
      */
-    public String toString() {
-        return " F," + easing + "," + startTime + "," + endTime +
-                "," + startingOpacity + "," + endingOpacity;
+    public void writeTo(Appendable out) throws IOException {
+        writeCommon(out, "F");
+        OsbFormat.field(out, startingOpacity);
+        OsbFormat.field(out, endingOpacity);
     }
 }
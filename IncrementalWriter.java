@@ -0,0 +1,372 @@
+/**
+ * IncrementalWriter.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * A writer for storyboards that get generated in many batches
+ * (one per song section, for example). Writer keeps every object
+ * it has ever been given, re-sorts all of them on every call and
+ * prints all of them again, so N batches cost O(N^2 log N) and
+ * repeat earlier output. This one doesn't.
+ *
+ * Each batch gets sorted by itself, turned into text right away, and
+ * kept as one sorted run per Layer. The objects themselves aren't
+ * kept around, only their text, and earlier batches are never touched
+ * again. If the text held in memory goes over the memory limit, each
+ * layer's runs are merged into one run in a temporary file. At
+ * closing(), each layer's runs (in memory and on disk) get merged
+ * together once, and the layer sections are written out one after
+ * the other, so every object is printed exactly once. Like Writer,
+ * the layer headers go up to the last layer that has anything in it.
+ *
+ * The order within a layer is the same as what Writer would give
+ * if it got everything in one batch: by start time, and in the order
+ * things were handed in when start times are tied.
+ *
+ * Changelog:
+ * 10/18/2026: Writer for multi-batch storyboards created.
+ * 10/18/2026: Writes through AsciiOutput, so either backend fits.
+ * 10/18/2026: Batches are kept as runs and merged once at closing(). Layer
+ * headers match Writer's, and the throughput isn't printed anymore.
+ *
+ * @version 1.00
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.PriorityQueue;
+
+public class IncrementalWriter {
+
+    //default amount of rendered text kept in memory before spilling, 64MB
+    public static final long DEFAULT_MEMORY_LIMIT = 64L << 20;
+
+    private static final String[] LAYER_HEADERS = {
+            "//Storyboard Layer 0 (Background)",
+            "//Storyboard Layer 1 (Fail)",
+            "//Storyboard Layer 2 (Pass)",
+            "//Storyboard Layer 3 (Foreground)"
+    };
+
+    private AsciiOutput writer;
+    private final LayerBucket[] buckets = new LayerBucket[LAYER_HEADERS.length];
+    private final long memoryLimit;
+    private long buffered = 0;
+    private long sequence = 0;
+
+    public IncrementalWriter() {
+        this("storyboard.osb");
+    }
+
+    public IncrementalWriter(String fileName) {
+        this(fileName, DEFAULT_MEMORY_LIMIT, false);
+    }
+
+    /**
+     * Makes an incremental writer for the given file.
+     *
+     * @param fileName    the .osb file to write
+     * @param memoryLimit how many bytes of rendered text to hold in
+     *                    memory before spilling to temporary files
+     * @param useChannel  true to use the FileChannel backend
+     */
+    public IncrementalWriter(String fileName, long memoryLimit, boolean useChannel) {
+        this.memoryLimit = memoryLimit;
+        try {
+            if (useChannel) {
+                writer = new ChannelWriter(Paths.get(fileName));
+            } else {
+                writer = new AsciiWriter(new FileOutputStream(fileName));
+            }
+            writer.append("[Events]").newLine();
+            writer.append("//Background and Video events").newLine();
+        } catch (IOException e) {
+            System.out.println("File Error! Check your file name/conventions.");
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LayerBucket(i);
+        }
+    }
+
+    //-----------------------------------------Writing---------------------------------------------
+
+    public void writeToFile(Sprite[] elements) {
+        writeToFile(new ArrayList<Storyboard>(Arrays.asList(elements)));
+    }
+
+    /**
+     * Adds a batch of objects to the storyboard. Only this batch gets
+     * sorted, and each object is turned into text once, right here.
+     *
+     * @param elements the objects in this batch, in any order
+     */
+    public void writeToFile(ArrayList<Storyboard> elements) {
+        ArrayList<Storyboard> batch = new ArrayList<Storyboard>(elements);
+        Collections.sort(batch, (a, b) -> a.compareTo(b));
+
+        ArrayList<ArrayList<Chunk>> perLayer = new ArrayList<ArrayList<Chunk>>();
+        for (int i = 0; i < buckets.length; i++) {
+            perLayer.add(new ArrayList<Chunk>());
+        }
+        for (Storyboard s : batch) {
+            Chunk c = new Chunk(s.getStartTime(), sequence++, Writer.render(s));
+            perLayer.get(s.getLayerENUM().ordinal()).add(c);
+            buffered += c.bytes.length;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i].add(perLayer.get(i));
+        }
+
+        if (buffered > memoryLimit) {
+            try {
+                for (LayerBucket bucket : buckets) {
+                    bucket.spill();
+                }
+            } catch (IOException e) {
+                System.out.println("Error spilling the storyboard to disk: " + e.getMessage());
+            }
+            buffered = 0;
+        }
+    }
+
+    /**
+     * Writes out the layer sections (every header up to the last
+     * layer with objects in it, the same as Writer), then the end of
+     * the [Events] section, and closes the file.
+     */
+    public void closing() {
+        int last = -1;
+        for (LayerBucket bucket : buckets) {
+            if (bucket.count > 0) {
+                last = bucket.layer;
+            }
+        }
+        try {
+            for (int i = 0; i <= last; i++) {
+                writer.append(LAYER_HEADERS[i]).newLine();
+                buckets[i].writeTo(writer);
+            }
+            writer.append("//Storyboard Sound Samples").newLine();
+            writer.close();
+        } catch (IOException e) {
+            System.out.println("File Error! Could not write to the file.");
+        }
+    }
+
+    /**
+     * @return how many bytes of storyboard have been written so far
+     */
+    public long getBytesWritten() {
+        return writer.getBytesWritten();
+    }
+
+    /**
+     * Throughput of the file output. Only the FileChannel backend
+     * keeps track of this, so it's 0 for the normal one.
+     *
+     * @return bytes written per second
+     */
+    public double getBytesPerSecond() {
+        if (writer instanceof ChannelWriter) {
+            return ((ChannelWriter) writer).getBytesPerSecond();
+        }
+        return 0;
+    }
+
+    //-----------------------------------------Helpers---------------------------------------------
+
+    /**
+     * One object's rendered text, plus the key it's sorted by.
+     */
+    private static class Chunk implements Comparable<Chunk> {
+        final int startTime;
+        final long sequence;
+        final byte[] bytes;
+
+        Chunk(int startTime, long sequence, byte[] bytes) {
+            this.startTime = startTime;
+            this.sequence = sequence;
+            this.bytes = bytes;
+        }
+
+        public int compareTo(Chunk other) {
+            if (startTime != other.startTime) {
+                return Integer.compare(startTime, other.startTime);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Everything that goes into one layer: the sorted runs of the
+     * batches in memory, plus any sorted runs that were spilled to disk.
+     */
+    private static class LayerBucket {
+        final int layer;
+        ArrayList<ArrayList<Chunk>> batches = new ArrayList<ArrayList<Chunk>>();
+        final ArrayList<Path> runs = new ArrayList<Path>();
+        long count = 0;
+
+        LayerBucket(int layer) {
+            this.layer = layer;
+        }
+
+        //keeps an already sorted batch as its own run
+        void add(ArrayList<Chunk> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            batches.add(batch);
+            count += batch.size();
+        }
+
+        //merges the runs in memory into one run on disk and forgets them
+        void spill() throws IOException {
+            if (batches.isEmpty()) {
+                return;
+            }
+            Path run = Files.createTempFile("josbgl-layer" + layer + "-", ".run");
+            run.toFile().deleteOnExit();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(run), 1 << 16));
+            try {
+                ArrayList<Cursor> cursors = new ArrayList<Cursor>();
+                for (ArrayList<Chunk> batch : batches) {
+                    cursors.add(new ListCursor(batch));
+                }
+                merge(cursors, c -> {
+                    out.writeInt(c.startTime);
+                    out.writeLong(c.sequence);
+                    out.writeInt(c.bytes.length);
+                    out.write(c.bytes);
+                });
+            } finally {
+                out.close();
+            }
+            runs.add(run);
+            batches = new ArrayList<ArrayList<Chunk>>();
+        }
+
+        //merges every run, in memory and on disk, into the output
+        void writeTo(AsciiOutput writer) throws IOException {
+            ArrayList<Cursor> cursors = new ArrayList<Cursor>();
+            try {
+                for (Path run : runs) {
+                    cursors.add(new RunCursor(run));
+                }
+                for (ArrayList<Chunk> batch : batches) {
+                    cursors.add(new ListCursor(batch));
+                }
+                merge(cursors, c -> writer.write(c.bytes, 0, c.bytes.length));
+            } finally {
+                for (Cursor c : cursors) {
+                    c.close();
+                }
+                for (Path run : runs) {
+                    Files.deleteIfExists(run);
+                }
+                runs.clear();
+                batches = new ArrayList<ArrayList<Chunk>>();
+            }
+        }
+    }
+
+    /**
+     * Where merged chunks go.
+     */
+    private interface ChunkSink {
+        void accept(Chunk c) throws IOException;
+    }
+
+    //k-way merge of sorted cursors, in order, into a sink
+    private static void merge(ArrayList<Cursor> cursors, ChunkSink sink) throws IOException {
+        PriorityQueue<Cursor> queue = new PriorityQueue<Cursor>(Math.max(1, cursors.size()));
+        for (Cursor c : cursors) {
+            if (c.advance()) {
+                queue.add(c);
+            }
+        }
+        while (!queue.isEmpty()) {
+            Cursor c = queue.poll();
+            sink.accept(c.head);
+            if (c.advance()) {
+                queue.add(c);
+            }
+        }
+    }
+
+    /**
+     * Walks through one sorted source of chunks during the merge.
+     */
+    private abstract static class Cursor implements Comparable<Cursor> {
+        Chunk head;
+
+        //moves head to the next chunk, false if there are no more
+        abstract boolean advance() throws IOException;
+
+        void close() throws IOException {
+
+        }
+
+        public int compareTo(Cursor other) {
+            return head.compareTo(other.head);
+        }
+    }
+
+    private static class ListCursor extends Cursor {
+        private final ArrayList<Chunk> list;
+        private int next = 0;
+
+        ListCursor(ArrayList<Chunk> list) {
+            this.list = list;
+        }
+
+        boolean advance() {
+            if (next == list.size()) {
+                return false;
+            }
+            head = list.get(next++);
+            return true;
+        }
+    }
+
+    private static class RunCursor extends Cursor {
+        private final DataInputStream in;
+
+        RunCursor(Path run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+        }
+
+        boolean advance() throws IOException {
+            int startTime;
+            try {
+                startTime = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            long sequence = in.readLong();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            head = new Chunk(startTime, sequence, bytes);
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
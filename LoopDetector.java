@@ -0,0 +1,306 @@
+/**
+ * LoopDetector.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Finds commands that repeat on a fixed period and turns them into
+ * loops (L). A sprite that pulses to the beat for a whole song is
+ * thousands of fade lines when written out one by one, but only a
+ * handful when written as a loop, which makes the .osb a lot smaller
+ * and a lot faster for osu! to load.
+ *
+ * The detector looks at each event type of an object on its own.
+ * Starting from every command, it tries blocks of the next 1 to
+ * MAX_BLOCK commands of that type, and checks how many times the
+ * block repeats right after itself, shifted by exactly one period
+ * each time, with the same easing, length and values. One pass of a
+ * loop lasts from the start of its first command to the end of its
+ * last, so the block has to fill its whole period for the loop to play
+ * the same way. The longest run wins, and gets replaced by one loop.
+ *
+ * When loops for different types start at the same time with the same
+ * period and count (like a fade and a scale pulsing together), they
+ * are put into one loop.
+ *
+ * Changelog:
+ * 10/18/2026: Detector created.
+ *
+ * @version 1.00
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+
+public class LoopDetector {
+
+    //the most commands one pass of a detected loop can have
+    public static final int MAX_BLOCK = 16;
+
+    //a loop has to replace at least this many commands to be worth it
+    private int minimumCommands = 4;
+
+    private long commandsBefore = 0;
+    private long commandsAfter = 0;
+
+    public LoopDetector() {
+
+    }
+
+    public int getMinimumCommands() {
+        return minimumCommands;
+    }
+
+    /**
+     * Sets how many commands a run has to have before it's turned
+     * into a loop. Anything below 3 doesn't make the file smaller.
+     *
+     * @param minimumCommands the smallest run worth looping
+     */
+    public void setMinimumCommands(int minimumCommands) {
+        this.minimumCommands = minimumCommands;
+    }
+
+    /**
+     * @return how many commands (loop lines and the commands in loops
+     * included) the objects had before this detector ran over them
+     */
+    public long getCommandsBefore() {
+        return commandsBefore;
+    }
+
+    /**
+     * @return how many commands the objects have after detection
+     */
+    public long getCommandsAfter() {
+        return commandsAfter;
+    }
+
+    //-----------------------------------------Detecting---------------------------------------------
+
+    /**
+     * Runs over every object in the list.
+     *
+     * @param objects the storyboard objects to look at
+     * @return how many loops were made
+     */
+    public int detect(Collection<? extends Storyboard> objects) {
+        int loops = 0;
+        for (Storyboard s : objects) {
+            loops += detect(s);
+        }
+        return loops;
+    }
+
+    /**
+     * Replaces every repeating run in one object with a loop.
+     *
+     * @param object the storyboard object to look at
+     * @return how many loops were made
+     */
+    public int detect(Storyboard object) {
+        Collection<StoryboardEvent> events = object.getEvents();
+        commandsBefore += lines(events);
+
+        EnumMap<EventType, List<StoryboardEvent>> byType =
+                new EnumMap<EventType, List<StoryboardEvent>>(EventType.class);
+        for (StoryboardEvent e : events) {
+            List<StoryboardEvent> list = byType.get(e.getEventType());
+            if (list == null) {
+                list = new ArrayList<StoryboardEvent>();
+                byType.put(e.getEventType(), list);
+            }
+            list.add(e);
+        }
+
+        //loops that already exist keep their start times
+        HashMap<Integer, Run> loops = new HashMap<Integer, Run>();
+        if (byType.containsKey(EventType.L)) {
+            for (StoryboardEvent e : byType.get(EventType.L)) {
+                loops.put(e.getStartTime(), null);
+            }
+        }
+
+        ArrayList<StoryboardEvent> kept = new ArrayList<StoryboardEvent>(events.size());
+        for (List<StoryboardEvent> list : byType.values()) {
+            EventType type = list.get(0).getEventType();
+            if (EventValues.channels(type) < 0 || overlapping(list)) {
+                kept.addAll(list);
+                continue;
+            }
+            int i = 0;
+            while (i < list.size()) {
+                Run run = findRun(list, i);
+                if (run == null || !place(loops, run, list)) {
+                    kept.add(list.get(i));
+                    i++;
+                } else {
+                    i += run.block * run.count;
+                }
+            }
+        }
+
+        int made = 0;
+        for (Run run : loops.values()) {
+            if (run == null) {
+                continue;
+            }
+            kept.add(new LoopEvent(run.start, run.count, run.commands));
+            made++;
+        }
+        if (made > 0) {
+            Collections.sort(kept, (a, b) -> a.getStartTime() - b.getStartTime());
+            object.replaceEvents(kept);
+        }
+        commandsAfter += lines(object.getEvents());
+        return made;
+    }
+
+    //-----------------------------------------Helpers---------------------------------------------
+
+    /**
+     * Finds the longest repeating run that starts at command i.
+     *
+     * @return the run, or null if there's none worth looping
+     */
+    private Run findRun(List<StoryboardEvent> list, int i) {
+        Run best = null;
+        int start = list.get(i).getStartTime();
+        for (int block = 1; block <= MAX_BLOCK && i + 2 * block <= list.size(); block++) {
+            int period = list.get(i + block).getStartTime() - start;
+            if (period <= 0 || list.get(i + block - 1).getEndTime() != start + period) {
+                continue;
+            }
+            int count = 1;
+            while (i + (count + 1) * block <= list.size()
+                    && repeats(list, i, block, count, period)) {
+                count++;
+            }
+            int commands = block * count;
+            if (count >= 2 && commands >= minimumCommands && commands > block + 1
+                    && (best == null || commands > best.block * best.count)) {
+                best = new Run(start, block, count, period, i);
+            }
+        }
+        return best;
+    }
+
+    //is pass number "pass" of the block the same as the first pass, shifted?
+    private static boolean repeats(List<StoryboardEvent> list, int i, int block, int pass,
+                                   int period) {
+        int shift = pass * period;
+        for (int k = 0; k < block; k++) {
+            StoryboardEvent a = list.get(i + k);
+            StoryboardEvent b = list.get(i + pass * block + k);
+            if (b.getStartTime() != a.getStartTime() + shift
+                    || b.getEndTime() != a.getEndTime() + shift
+                    || b.getEasing() != a.getEasing()
+                    || !sameValues(a, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameValues(StoryboardEvent a, StoryboardEvent b) {
+        if (a.getClass() != b.getClass()) {
+            return false;
+        }
+        int n = EventValues.channels(a.getEventType());
+        double[] x = new double[n];
+        double[] y = new double[n];
+        EventValues.startValues(a, x);
+        EventValues.startValues(b, y);
+        for (int k = 0; k < n; k++) {
+            if (x[k] != y[k]) {
+                return false;
+            }
+        }
+        EventValues.endValues(a, x);
+        EventValues.endValues(b, y);
+        for (int k = 0; k < n; k++) {
+            if (x[k] != y[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Claims the run's start time for a loop. If there's already a
+     * loop starting then, the run gets added to it when the period
+     * and count match, and is turned down otherwise (two loops can't
+     * start at the same time on one object).
+     *
+     * @return true if the run is going into a loop
+     */
+    private static boolean place(HashMap<Integer, Run> loops, Run run,
+                                 List<StoryboardEvent> list) {
+        ArrayList<StoryboardEvent> commands = new ArrayList<StoryboardEvent>(run.block);
+        for (int k = 0; k < run.block; k++) {
+            StoryboardEvent c = list.get(run.first + k);
+            commands.add(EventValues.retime(c, c.getStartTime() - run.start,
+                    c.getEndTime() - run.start));
+        }
+        if (!loops.containsKey(run.start)) {
+            run.commands = commands;
+            loops.put(run.start, run);
+            return true;
+        }
+        Run other = loops.get(run.start);
+        if (other != null && other.period == run.period && other.count == run.count) {
+            other.commands.addAll(commands);
+            return true;
+        }
+        return false;
+    }
+
+    //true if any two commands in the list (sorted by start) run into each other
+    private static boolean overlapping(List<StoryboardEvent> list) {
+        for (int i = 1; i < list.size(); i++) {
+            if (list.get(i).getStartTime() < list.get(i - 1).getEndTime()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //how many lines the events take up in the .osb
+    private static long lines(Collection<StoryboardEvent> events) {
+        long lines = 0;
+        for (StoryboardEvent e : events) {
+            lines++;
+            if (e instanceof LoopEvent) {
+                lines += ((LoopEvent) e).getCommands().size();
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * A repeating run: "block" commands starting at index "first",
+     * repeated "count" times, "period" apart.
+     */
+    private static class Run {
+        final int start;
+        final int block;
+        final int count;
+        final int period;
+        final int first;
+        ArrayList<StoryboardEvent> commands;
+
+        Run(int start, int block, int count, int period, int first) {
+            this.start = start;
+            this.block = block;
+            this.count = count;
+            this.period = period;
+            this.first = first;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Loop Methods
+ * General format for writing in SB is:
+ * "_L,startTime,loopCount"
+ * "__[command]"
+ * "__[command]"
+ * ...
+ * <p/>
+ * The commands inside the loop are written on the lines right under
+ * it, with one more space in front, and their times are relative to
+ * the start of the loop. The whole set of commands plays loopCount
+ * times in a row.
+ */
+
+/**
+ * LoopEvent.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * The LoopEvent class extends the StoryboardEvent.java
+ * class. This class is treated as an instance
+ * of the loop (L) command in osu!'s storyboards. It holds the
+ * commands that get repeated, with their times relative to the
+ * start of the loop.
+ *
+ * One pass through the loop lasts from the earliest start to the
+ * latest end of its commands, and the next pass starts right after.
+ * So this event runs from startTime plus the earliest start, for
+ * loopCount passes. Easing doesn't mean anything for loops, so it's
+ * always 0.
+ *
+ * Changelog:
+ * 10/18/2026: Loop support added.
+ * 10/18/2026: Nested loop warnings go to the DiagnosticLog sink.
+ * 10/18/2026: previousChecking removed, PreviousResolver fills in the previous values.
+ *
+ * @version 1.00
+ */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class LoopEvent extends StoryboardEvent {
+
+    protected int loopCount = 0;
+    protected ArrayList<StoryboardEvent> commands;
+
+    /**
+     * Constructor that stores variables into
+     * their proper places
+     *
+     * @param startTime the time that the loop begins
+     * @param loopCount how many times the commands play
+     * @param commands  the commands to repeat, with times relative to
+     *                  startTime. Loops can't go inside of loops, so any
+     *                  LoopEvent in here is left out with a warning.
+     */
+    public LoopEvent(int startTime, int loopCount, List<StoryboardEvent> commands) {
+        this.startTime = startTime;
+        this.loopCount = loopCount;
+        this.commands = new ArrayList<StoryboardEvent>(commands.size());
+        for (StoryboardEvent c : commands) {
+            if (c instanceof LoopEvent) {
+                DiagnosticLog.warn(Diagnostic.NESTED_LOOP, -1, startTime + c.getStartTime());
+            } else {
+                this.commands.add(c);
+            }
+        }
+        Collections.sort(this.commands, (a, b) -> a.getStartTime() - b.getStartTime());
+        e = EventType.L;
+        endTime = startTime + getFirstStart() + loopCount * getPeriod();
+    }
+
+    //getter methods
+    public int getLoopCount() {
+        return loopCount;
+    }
+
+    /**
+     * @return the commands in the loop, with times relative to
+     * the loop's start, in order of start time
+     */
+    public List<StoryboardEvent> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    /**
+     * @return how long one pass through the loop takes
+     */
+    public int getPeriod() {
+        if (commands.isEmpty()) {
+            return 0;
+        }
+        int last = Integer.MIN_VALUE;
+        for (StoryboardEvent c : commands) {
+            last = Math.max(last, c.getEndTime());
+        }
+        return last - getFirstStart();
+    }
+
+    private int getFirstStart() {
+        return commands.isEmpty() ? 0 : commands.get(0).getStartTime();
+    }
+
+    /**
+     * Unrolls the loop into the plain commands it stands for, with
+     * absolute times, in order of start time.
+     *
+     * @return every pass of every command in the loop
+     */
+    public List<StoryboardEvent> expand() {
+        ArrayList<StoryboardEvent> expanded =
+                new ArrayList<StoryboardEvent>(commands.size() * Math.max(loopCount, 0));
+        int period = getPeriod();
+        for (int i = 0; i < loopCount; i++) {
+            int offset = startTime + i * period;
+            for (StoryboardEvent c : commands) {
+                StoryboardEvent copy = EventValues.retime(c, offset + c.getStartTime(),
+                        offset + c.getEndTime());
+                if (copy != null) {
+                    expanded.add(copy);
+                }
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Writes the loop line, then every command in the loop on its
+     * own line, one space further in.
+     *
+     * @param out where the event lines get written
+     * @throws IOException if the Appendable fails to write
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append(" L");
+        OsbFormat.field(out, startTime);
+        OsbFormat.field(out, loopCount);
+        for (StoryboardEvent c : commands) {
+            out.append('\n').append(' ');
+            c.writeTo(out);
+        }
+    }
+}
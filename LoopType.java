@@ -0,0 +1,20 @@
+/**
+ * LoopType.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * What an Animation does after its last frame: start over from
+ * the first one (LoopForever, what osu! does if it isn't given one),
+ * or stay on the last one (LoopOnce).
+ *
+ * Changelog:
+ * 10/18/2026: LoopType ENUM created for animations.
+ *
+ * @version 1.00
+ */
+public enum LoopType {
+    LoopForever, LoopOnce
+}
@@ -33,10 +33,13 @@
  *
  * Changelog:
  * 1/27/2015: Finished draft.
+ * 10/18/2026: previousChecking removed, PreviousResolver fills in the previous values.
  *
  * @author Erina
  * @version 1.00
  */
+import java.io.IOException;
+
 public class MoveEvent extends StoryboardEvent {
 
     protected int startX = 0;
@@ -90,36 +93,18 @@ public class MoveEvent extends StoryboardEvent {
     }
 
     /**
-     * Previous checking for MoveEvent
-     * @param o storyboard event to be compared with, and to
-     *          attempt to extract previous values out of
-     * @return true if values were obtained, false if this event
-     * cannot take the previous values from the other (maybe
-     * due to the fact that the other event doesn't come previous
-     * to current, or if the event type aren't the same).
-     */
-    public boolean previousChecking(StoryboardEvent o) {
-        if (o instanceof MoveEvent) {
-            MoveEvent m = (MoveEvent) o;
-            if (m.getEndTime() <= this.startTime) {
-                this.startX = m.getEndX();
-                this.startY = m.getEndY();
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Returns the event line that will be printed into the
+     * Writes the event line that will be printed into the
      * .osb file
      *
-     * @return String with the event line
+     * @param out where the event line gets written
+     * @throws IOException if the Appendable fails to write
      */
-    public String toString() {
-        return " M," + easing + "," + startTime + "," + endTime +
-                "," + startX + "," + startY + "," + endX + "," +
-                endY;
+    public void writeTo(Appendable out) throws IOException {
+        writeCommon(out, "M");
+        OsbFormat.field(out, startX);
+        OsbFormat.field(out, startY);
+        OsbFormat.field(out, endX);
+        OsbFormat.field(out, endY);
     }
 
 }
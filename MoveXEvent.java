@@ -34,10 +34,13 @@
  *
  * Changelog:
  * 1/27/2015: Finished draft.
+ * 10/18/2026: previousChecking removed, PreviousResolver fills in the previous values.
  *
  * @author Erina
  * @version 1.00
  */
+import java.io.IOException;
+
 public class MoveXEvent extends MoveEvent {
 
     public MoveXEvent(int easing, int startTime, int endTime,
@@ -50,36 +53,9 @@ public class MoveXEvent extends MoveEvent {
         e = EventType.MX;
     }
 
-    /**
-     * Previous checking in this case only checks if the
-     * other object is an instance of MoveEvent. This is because
-     * MoveX and MoveY ALWAYS infers that the user is taking
-     * previous values, so the X and Y coordinates will always
-     * be stored for both events, regardless of whether or not
-     * they are actually used/printed.
-     *
-     * @param o storyboard event to be compared with, and to
-     *          attempt to extract previous values out of
-     * @return true if values were obtained, false if this event
-     * cannot take the previous values from the other (maybe
-     * due to the fact that the other event doesn't come previous
-     * to current, or if the event type aren't the same).
-     */
-    public boolean previousChecking(StoryboardEvent o) {
-        if (o instanceof MoveEvent) {
-            MoveEvent m = (MoveEvent) o;
-            if (m.getEndTime() <= this.startTime) {
-                this.startX = m.getEndX();
-                this.startY = m.getEndY();
-                this.endY = m.getEndY();
-                return true;
-            }
-        }
-        return false;
-    }
-
-    public String toString() {
-        return " MX," + easing + "," + startTime + "," + endTime +
-                "," + startX + ","  + endX;
+    public void writeTo(Appendable out) throws IOException {
+        writeCommon(out, "MX");
+        OsbFormat.field(out, startX);
+        OsbFormat.field(out, endX);
     }
 }
@@ -0,0 +1,152 @@
+/**
+ * OsbFormat.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Number formatting helpers for writing .osb lines. Everything
+ * here appends straight into an Appendable one character at a time,
+ * so writing a number doesn't box it or build a temporary String
+ * (which is what "..." + number does behind the scenes).
+ *
+ * Doubles come out in the same shape as Double.toString for the
+ * values storyboards actually use (0.0, 0.25, 3.4, 75.0, ...),
+ * meaning the shortest decimal that reads back as the same double,
+ * always with at least one digit after the point. Anything really
+ * big, really small or weird (NaN, infinity) just falls back to
+ * Double.toString.
+ *
+ * Changelog:
+ * 10/18/2026: Created for the streaming serializer.
+ *
+ * @version 1.00
+ */
+
+import java.io.IOException;
+
+public final class OsbFormat {
+
+    //doubles at or past this size go through Double.toString
+    private static final double MAX_PLAIN = 1e7;
+    //doubles smaller than this (other than zero) go through Double.toString
+    private static final double MIN_PLAIN = 1e-3;
+    //the most digits after the decimal point we'll try before giving up
+    private static final int MAX_DECIMALS = 9;
+    //the largest long that a double can hold exactly
+    private static final double EXACT_LIMIT = 9007199254740992.0;
+
+    private OsbFormat() {
+
+    }
+
+    /**
+     * Appends a comma, then the int.
+     *
+     * @param out   where to write
+     * @param value the number to write
+     * @throws IOException if the Appendable fails
+     */
+    public static void field(Appendable out, int value) throws IOException {
+        out.append(',');
+        appendLong(out, value);
+    }
+
+    /**
+     * Appends a comma, then the double.
+     *
+     * @param out   where to write
+     * @param value the number to write
+     * @throws IOException if the Appendable fails
+     */
+    public static void field(Appendable out, double value) throws IOException {
+        out.append(',');
+        appendDouble(out, value);
+    }
+
+    /**
+     * Appends an int without boxing it.
+     *
+     * @param out   where to write
+     * @param value the number to write
+     * @throws IOException if the Appendable fails
+     */
+    public static void appendInt(Appendable out, int value) throws IOException {
+        appendLong(out, value);
+    }
+
+    /**
+     * Appends a long without boxing it.
+     *
+     * @param out   where to write
+     * @param value the number to write
+     * @throws IOException if the Appendable fails
+     */
+    public static void appendLong(Appendable out, long value) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                out.append("-9223372036854775808");
+                return;
+            }
+            out.append('-');
+            value = -value;
+        }
+        long div = 1;
+        while (div <= value / 10) {
+            div *= 10;
+        }
+        while (div > 0) {
+            out.append((char) ('0' + (value / div) % 10));
+            div /= 10;
+        }
+    }
+
+    /**
+     * Appends a double, using the shortest decimal that still
+     * reads back as the same number.
+     *
+     * @param out   where to write
+     * @param value the number to write
+     * @throws IOException if the Appendable fails
+     */
+    public static void appendDouble(Appendable out, double value) throws IOException {
+        double a = Math.abs(value);
+        if (Double.isNaN(value) || a >= MAX_PLAIN || (a < MIN_PLAIN && a != 0)) {
+            out.append(Double.toString(value));
+            return;
+        }
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            out.append('-');
+        }
+
+        //whole numbers are easy
+        long whole = (long) a;
+        if (whole == a) {
+            appendLong(out, whole);
+            out.append(".0");
+            return;
+        }
+
+        //otherwise find the fewest decimals that give back the same double
+        long scale = 1;
+        for (int k = 1; k <= MAX_DECIMALS; k++) {
+            scale *= 10;
+            double scaled = a * scale;
+            if (scaled >= EXACT_LIMIT) {
+                break;
+            }
+            long m = Math.round(scaled);
+            if ((double) m / scale == a) {
+                appendLong(out, m / scale);
+                out.append('.');
+                long frac = m % scale;
+                for (long div = scale / 10; div > 0; div /= 10) {
+                    out.append((char) ('0' + (frac / div) % 10));
+                }
+                return;
+            }
+        }
+        out.append(Double.toString(a));
+    }
+}
@@ -0,0 +1,557 @@
+/**
+ * OsbParser.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Reads an existing .osb (or the [Events] of a .osu) back into
+ * Sprites and Animations, so storyboards made by hand or by other
+ * tools can be optimized, culled, checked or merged like the ones
+ * made here.
+ *
+ * The file is memory-mapped (in windows of WINDOW bytes, so files
+ * over 2 GB work too) and copied a block at a time into one reusable
+ * byte array, which the lines are read straight out of: numbers are
+ * worked out digit by digit, and the only Strings made are the file
+ * paths of the objects. Each object is filled in bulk mode
+ * (see Storyboard.beginBulk), so its commands get sorted and checked
+ * once, when it's sealed.
+ *
+ * What's understood:
+ *
+ * - Sprite lines, with the layer and origin by name or by number,
+ * - Animation lines the same way, with the loop type by name or by
+ * number (LoopForever when it's left out),
+ * - F, M, MX, MY, S, V, R and C commands, including the short forms
+ * (an empty end time means the command takes no time, leaving out
+ * the end values means they're the same as the start values, and
+ * more than two sets of values make a chain of commands that each
+ * take as long as the first),
+ * - P commands (H, V and A),
+ * - L loops with their commands one level further in. Lines can be
+ * pushed in with spaces or underscores.
+ *
+ * Everything else (Sample lines, T triggers and their
+ * commands, variables, lines that don't make sense) is skipped and
+ * counted; see getSkippedLines.
+ *
+ * Changelog:
+ * 10/18/2026: Parser created.
+ * 10/18/2026: Animation lines are read too.
+ *
+ * @version 1.00
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class OsbParser {
+
+    //how much of the file gets mapped at once
+    public static final int WINDOW = 1 << 28;
+    //how much of it gets copied out to be read at once
+    private static final int BLOCK = 1 << 16;
+
+    private static final Layer[] LAYERS = Layer.values();
+    private static final Origin[] ORIGINS = Origin.values();
+    private static final LoopType[] LOOP_TYPES = LoopType.values();
+    //the numbers osu! gives the origins (6 is "Custom", which it draws as TopLeft)
+    private static final Origin[] ORIGIN_NUMBERS = {Origin.TopLeft, Origin.Centre,
+            Origin.CentreLeft, Origin.TopRight, Origin.BottomCentre, Origin.TopCentre,
+            Origin.TopLeft, Origin.CentreRight, Origin.BottomLeft, Origin.BottomRight};
+
+    //powers of ten that doubles hold exactly
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private boolean validating = true;
+    private boolean compact = false;
+
+    private long skippedLines = 0;
+    private long commands = 0;
+
+    /**
+     * @param validating false to make the objects with
+     *                   setValidating(false), leaving the checks to a
+     *                   Validator
+     */
+    public void setValidating(boolean validating) {
+        this.validating = validating;
+    }
+
+    public boolean isValidating() {
+        return validating;
+    }
+
+    /**
+     * @param compact true to make the Sprites in compact mode
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * @return how many lines the last parse skipped
+     */
+    public long getSkippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * @return how many commands the last parse read (the commands
+     * inside of loops included)
+     */
+    public long getCommands() {
+        return commands;
+    }
+
+    //-----------------------------------------Parsing---------------------------------------------
+
+    /**
+     * Reads every object out of a file.
+     *
+     * @param file the .osb or .osu file
+     * @return the objects, in the order they're in the file
+     * @throws IOException if the file can't be read
+     */
+    public List<Storyboard> parse(File file) throws IOException {
+        Run run = new Run();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long offset = 0; offset < size; offset += WINDOW) {
+                int length = (int) Math.min(WINDOW, size - offset);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        length);
+                run.read(window, offset + length == size);
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Reads every object out of bytes that are already in memory.
+     *
+     * @param data the contents of a .osb or .osu, from its position to
+     *             its limit
+     * @return the objects, in the order they're in
+     */
+    public List<Storyboard> parse(ByteBuffer data) {
+        Run run = new Run();
+        run.read(data.slice(), true);
+        return run.finish();
+    }
+
+    /**
+     * One parse, which can go over several windows.
+     */
+    private class Run {
+
+        private final List<Storyboard> objects = new ArrayList<Storyboard>();
+
+        //the object commands go to, or null while skipping an object
+        private Storyboard current;
+        //the open loop, if there is one
+        private int loopStart;
+        private int loopCount;
+        private List<StoryboardEvent> loop;
+        //true while skipping the commands of a trigger
+        private boolean skipping;
+
+        //the block being read, the part of it that's filled, and the line being read
+        private byte[] buf = new byte[BLOCK];
+        private int kept = 0;
+        private int at;
+        private int end;
+
+        private double[] values = new double[16];
+
+        Run() {
+            skippedLines = 0;
+            commands = 0;
+        }
+
+        //copies the bytes into the block bit by bit, reading the whole
+        //lines each time and keeping the rest for the next bit
+        void read(ByteBuffer data, boolean last) {
+            while (data.hasRemaining()) {
+                if (kept == buf.length) {
+                    //a line longer than the block
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+                int n = Math.min(buf.length - kept, data.remaining());
+                data.get(buf, kept, n);
+                kept += n;
+                int used = lines(kept, last && !data.hasRemaining());
+                System.arraycopy(buf, used, buf, 0, kept - used);
+                kept -= used;
+            }
+        }
+
+        //reads every whole line, and gives back how many bytes they took
+        private int lines(int length, boolean last) {
+            int start = 0;
+            while (start < length) {
+                int newline = start;
+                while (newline < length && buf[newline] != '\n') {
+                    newline++;
+                }
+                if (newline == length && !last) {
+                    break;
+                }
+                int stop = newline;
+                if (stop > start && buf[stop - 1] == '\r') {
+                    stop--;
+                }
+                line(start, stop);
+                start = newline + 1;
+            }
+            return Math.min(start, length);
+        }
+
+        List<Storyboard> finish() {
+            closeLoop();
+            for (Storyboard s : objects) {
+                s.seal();
+            }
+            return objects;
+        }
+
+        private void line(int from, int to) {
+            int depth = 0;
+            while (from < to && (buf[from] == ' ' || buf[from] == '_')) {
+                from++;
+                depth++;
+            }
+            if (from == to || (to - from >= 2 && buf[from] == '/' && buf[from + 1] == '/')) {
+                return;
+            }
+            at = from;
+            end = to;
+            if (depth < 2) {
+                closeLoop();
+                skipping = false;
+            }
+            if (depth == 0) {
+                object();
+            } else if (current == null || skipping) {
+                skippedLines++;
+            } else if (depth == 1) {
+                command(false);
+            } else if (loop != null) {
+                command(true);
+            } else {
+                skippedLines++;
+            }
+        }
+
+        //a line that isn't pushed in: a new object, or something else
+        private void object() {
+            current = null;
+            boolean animation = false;
+            if (!word("Sprite")) {
+                if (!word("Animation")) {
+                    if (buf[at] != '[') {
+                        skippedLines++;
+                    }
+                    return;
+                }
+                animation = true;
+            }
+            try {
+                Layer layer = choice(LAYERS, LAYERS);
+                Origin origin = choice(ORIGINS, ORIGIN_NUMBERS);
+                String path = path();
+                int x = (int) Math.round(number());
+                int y = (int) Math.round(number());
+                Storyboard s;
+                if (animation) {
+                    int frameCount = (int) number();
+                    double frameDelay = number();
+                    LoopType loopType = at < end ? choice(LOOP_TYPES, LOOP_TYPES)
+                            : LoopType.LoopForever;
+                    s = new Animation(layer, origin, path, x, y, frameCount, frameDelay, loopType);
+                } else {
+                    s = new Sprite(layer, origin, path, x, y, compact);
+                }
+                s.beginBulk();
+                s.setValidating(validating);
+                objects.add(s);
+                current = s;
+            } catch (IllegalArgumentException e) {
+                skippedLines++;
+            }
+        }
+
+        private void command(boolean inLoop) {
+            try {
+                if (word("L")) {
+                    if (inLoop) {
+                        skippedLines++;
+                        return;
+                    }
+                    loopStart = (int) number();
+                    loopCount = (int) number();
+                    loop = new ArrayList<StoryboardEvent>();
+                    return;
+                }
+                if (word("T")) {
+                    skipping = !inLoop;
+                    skippedLines++;
+                    return;
+                }
+                EventType type = type();
+                int easing = (int) number();
+                int startTime = (int) number();
+                int endTime = empty() ? startTime : (int) number();
+                if (type == EventType.PH) {
+                    add(new ParameterEvent(easing, startTime, endTime, parameter()), inLoop);
+                    return;
+                }
+                int n = EventValues.channels(type);
+                int count = 0;
+                while (at < end) {
+                    if (count == values.length) {
+                        values = Arrays.copyOf(values, count * 2);
+                    }
+                    values[count++] = number();
+                }
+                if (count < n || count % n != 0) {
+                    skippedLines++;
+                    return;
+                }
+                double[] from = new double[n];
+                double[] to = new double[n];
+                if (count == n) {
+                    System.arraycopy(values, 0, from, 0, n);
+                    add(EventValues.make(type, easing, startTime, endTime, from, from), inLoop);
+                    return;
+                }
+                //more than two sets of values chain one command after another
+                int length = endTime - startTime;
+                for (int k = 0; k + 2 * n <= count; k += n) {
+                    System.arraycopy(values, k, from, 0, n);
+                    System.arraycopy(values, k + n, to, 0, n);
+                    int shift = k / n * length;
+                    add(EventValues.make(type, easing, startTime + shift, endTime + shift,
+                            from, to), inLoop);
+                }
+            } catch (IllegalArgumentException e) {
+                skippedLines++;
+            }
+        }
+
+        private void add(StoryboardEvent e, boolean inLoop) {
+            commands++;
+            if (inLoop) {
+                loop.add(e);
+            } else {
+                current.addToCompilation(e, false);
+            }
+        }
+
+        private void closeLoop() {
+            if (loop != null) {
+                commands++;
+                current.addToCompilation(new LoopEvent(loopStart, loopCount, loop), false);
+                loop = null;
+            }
+        }
+
+        //-----------------------------------------Fields---------------------------------------------
+
+        //the length of the field at the cursor
+        private int fieldLength() {
+            int i = at;
+            while (i < end && buf[i] != ',') {
+                i++;
+            }
+            return i - at;
+        }
+
+        private void next(int length) {
+            at += length;
+            if (at < end) {
+                at++;
+            }
+        }
+
+        private boolean empty() {
+            if (at < end && buf[at] == ',') {
+                at++;
+                return true;
+            }
+            return false;
+        }
+
+        //takes the field if it's exactly this word
+        private boolean word(String word) {
+            int length = fieldLength();
+            if (length != word.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buf[at + i] != word.charAt(i)) {
+                    return false;
+                }
+            }
+            next(length);
+            return true;
+        }
+
+        //a layer or origin, by name or by number
+        private <E extends Enum<E>> E choice(E[] options, E[] numbers) {
+            int length = fieldLength();
+            if (length > 0 && buf[at] >= '0' && buf[at] <= '9') {
+                int i = (int) number();
+                if (i < 0 || i >= numbers.length) {
+                    throw new IllegalArgumentException();
+                }
+                return numbers[i];
+            }
+            for (E option : options) {
+                if (word(option.name())) {
+                    return option;
+                }
+            }
+            throw new IllegalArgumentException();
+        }
+
+        private String path() {
+            int length = fieldLength();
+            int from = at;
+            int to = at + length;
+            if (length >= 2 && buf[from] == '"' && buf[to - 1] == '"') {
+                from++;
+                to--;
+            }
+            next(length);
+            return new String(buf, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        private EventType type() {
+            int length = fieldLength();
+            byte a = length > 0 ? buf[at] : 0;
+            byte b = length > 1 ? buf[at + 1] : 0;
+            EventType type = null;
+            if (length == 1) {
+                switch (a) {
+                    case 'F':
+                        type = EventType.F;
+                        break;
+                    case 'M':
+                        type = EventType.M;
+                        break;
+                    case 'S':
+                        type = EventType.S;
+                        break;
+                    case 'V':
+                        type = EventType.V;
+                        break;
+                    case 'R':
+                        type = EventType.R;
+                        break;
+                    case 'C':
+                        type = EventType.C;
+                        break;
+                    case 'P':
+                        //which parameter comes after the times
+                        type = EventType.PH;
+                        break;
+                    default:
+                        break;
+                }
+            } else if (length == 2 && a == 'M' && b == 'X') {
+                type = EventType.MX;
+            } else if (length == 2 && a == 'M' && b == 'Y') {
+                type = EventType.MY;
+            }
+            if (type == null) {
+                throw new IllegalArgumentException();
+            }
+            next(length);
+            return type;
+        }
+
+        private String parameter() {
+            int length = fieldLength();
+            if (length != 1) {
+                throw new IllegalArgumentException();
+            }
+            byte p = buf[at];
+            next(length);
+            switch (p) {
+                case 'H':
+                    return "H";
+                case 'V':
+                    return "V";
+                case 'A':
+                    return "A";
+                default:
+                    throw new IllegalArgumentException();
+            }
+        }
+
+        //a whole or decimal number, read straight from the bytes
+        private double number() {
+            int length = fieldLength();
+            int i = at;
+            int stop = at + length;
+            boolean negative = false;
+            if (i < stop && (buf[i] == '-' || buf[i] == '+')) {
+                negative = buf[i] == '-';
+                i++;
+            }
+            long digits = 0;
+            int decimals = 0;
+            int count = 0;
+            boolean point = false;
+            for (; i < stop; i++) {
+                byte c = buf[i];
+                if (c >= '0' && c <= '9') {
+                    digits = digits * 10 + (c - '0');
+                    count++;
+                    if (point) {
+                        decimals++;
+                    }
+                } else if (c == '.' && !point) {
+                    point = true;
+                } else {
+                    break;
+                }
+            }
+            double value;
+            if (count == 0) {
+                throw new IllegalArgumentException();
+            } else if (i == stop && count < 16 && decimals < POW10.length) {
+                //both fit in a double exactly, so one division rounds right
+                value = decimals == 0 ? digits : digits / POW10[decimals];
+            } else {
+                //exponents and very long numbers
+                value = Double.parseDouble(new String(buf, at, length, StandardCharsets.US_ASCII));
+                negative = false;
+            }
+            next(length);
+            return negative ? -value : value;
+        }
+    }
+}
@@ -29,10 +29,13 @@
  *
  * Changelog:
  * 1/27/2015: Finished draft.
+ * 10/18/2026: previousChecking removed, PreviousResolver fills in the previous values.
  *
  * @author Erina
  * @version 1.00
  */
+import java.io.IOException;
+
 public class ParameterEvent extends StoryboardEvent {
 
     protected String type = "";
@@ -60,16 +63,9 @@ public class ParameterEvent extends StoryboardEvent {
         return type;
     }
 
-    //since time isn't a big factor here, and since there's only
-    //a on and off position for these, previous checking isn't
-    //necessary.
-    public boolean previousChecking(StoryboardEvent o) {
-        return false;
-    }
-
-    public String toString() {
-        return " P" + "," + easing + "," + startTime +
-                "," + endTime + "," + type;
+    public void writeTo(Appendable out) throws IOException {
+        writeCommon(out, "P");
+        out.append(',').append(type);
     }
 
 }
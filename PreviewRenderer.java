@@ -0,0 +1,327 @@
+/**
+ * PreviewRenderer.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Draws frames of a storyboard without osu!, so it can be checked
+ * without writing the .osb and loading the map every time. Every
+ * object gets a SpriteEvaluator, and for each frame the visible ones
+ * are drawn with Java2D at their position, scale, vector scale,
+ * rotation, opacity, color and flips, turned around their Origin, with
+ * additive ones added onto the frame instead of blended over it.
+ *
+ * Objects are drawn in the order the Writer puts them in the .osb
+ * (by Layer, then by start time), which is the order osu! draws them
+ * in. Only the Pass layer is drawn, unless setFailing(true) is used
+ * to draw Fail instead.
+ *
+ * The frame is 640x480, or 854x480 with setWidescreen(true), where
+ * the storyboard's 640 wide area sits in the middle (like osu! does).
+ * Images are loaded from the folder given, the same folder the .osb
+ * goes in, once each, and shared by every frame.
+ *
+ * renderFrames draws a range of times on a ForkJoinPool, one frame
+ * per task, and saves each one as a PNG, so a whole song can be
+ * previewed with every core at once.
+ *
+ * Animations are drawn with the frame they show at the time. Videos
+ * aren't drawn. Images that can't be loaded are skipped, with one
+ * message each.
+ *
+ * Changelog:
+ * 10/18/2026: Renderer created.
+ * 10/18/2026: Animations are drawn with their current frame.
+ * 10/18/2026: A frame that fails to render stops renderFrames instead of being printed.
+ *
+ * @version 1.00
+ */
+
+import javax.imageio.ImageIO;
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.CompositeContext;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RescaleOp;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class PreviewRenderer {
+
+    public static final int HEIGHT = 480;
+    public static final int WIDTH = 640;
+    public static final int WIDESCREEN_WIDTH = 854;
+
+    private final File folder;
+    private final List<Storyboard> objects;
+    private final List<SpriteEvaluator> evaluators;
+
+    //every image that's been loaded, by file path
+    private final ConcurrentHashMap<String, BufferedImage> images =
+            new ConcurrentHashMap<String, BufferedImage>();
+    //stands in for images that couldn't be loaded
+    private static final BufferedImage MISSING = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+    private boolean widescreen = false;
+    private boolean failing = false;
+
+    //null means render on the calling thread only
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Takes a snapshot of the objects to draw (changing them
+     * afterwards doesn't change the frames).
+     *
+     * @param objects the storyboard objects
+     * @param folder  the folder the images' file paths start from
+     */
+    public PreviewRenderer(Collection<? extends Storyboard> objects, File folder) {
+        this.folder = folder;
+        this.objects = new ArrayList<Storyboard>(objects);
+        Collections.sort(this.objects, (a, b) -> a.compareTo(b));
+        evaluators = SpriteEvaluator.of(this.objects);
+    }
+
+    public void setWidescreen(boolean widescreen) {
+        this.widescreen = widescreen;
+    }
+
+    public boolean isWidescreen() {
+        return widescreen;
+    }
+
+    /**
+     * @param failing true to draw the Fail layer instead of Pass
+     */
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    public boolean isFailing() {
+        return failing;
+    }
+
+    /**
+     * @param pool the pool to render frames on, or null to render
+     *             them one at a time on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public int getWidth() {
+        return widescreen ? WIDESCREEN_WIDTH : WIDTH;
+    }
+
+    //-----------------------------------------Rendering---------------------------------------------
+
+    /**
+     * Draws one frame. Safe to call from several threads at once.
+     *
+     * @param time the time in milliseconds
+     * @return the frame
+     */
+    public BufferedImage render(int time) {
+        BufferedImage frame = new BufferedImage(getWidth(), HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        int left = (getWidth() - WIDTH) / 2;
+        Layer hidden = failing ? Layer.Pass : Layer.Fail;
+
+        for (int i = 0; i < objects.size(); i++) {
+            Storyboard s = objects.get(i);
+            SpriteEvaluator e = evaluators.get(i);
+            if (s.getLayerENUM() == hidden || !e.isVisible(time)) {
+                continue;
+            }
+            BufferedImage image = image(s instanceof Animation
+                    ? ((Animation) s).getFilePathAt(time) : s.getFilePath());
+            if (image == MISSING) {
+                continue;
+            }
+            draw(g, s, e, image, time, left);
+        }
+        g.dispose();
+        return frame;
+    }
+
+    /**
+     * Draws frames from one time to another and saves them as
+     * frame00000.png, frame00001.png, ... in a folder.
+     *
+     * @param from the time of the first frame
+     * @param to   the time of the last frame (drawn if the steps land on it)
+     * @param step the milliseconds between frames (40 is 25 frames per second)
+     * @param into the folder the PNGs go in (made if it doesn't exist)
+     * @return how many frames were saved
+     * @throws IllegalStateException if a frame failed to render (with what
+     *                               went wrong as the cause), or if the
+     *                               rendering was interrupted
+     */
+    public int renderFrames(int from, int to, int step, File into) {
+        if (step <= 0 || to < from) {
+            return 0;
+        }
+        into.mkdirs();
+        int count = (to - from) / step + 1;
+        AtomicInteger saved = new AtomicInteger();
+        if (pool == null) {
+            for (int i = 0; i < count; i++) {
+                save(i, from + i * step, into, saved);
+            }
+        } else {
+            try {
+                pool.submit(() -> IntStream.range(0, count).parallel()
+                        .forEach(i -> save(i, from + i * step, into, saved)))
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Rendering was interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A frame failed to render.", e.getCause());
+            }
+        }
+        return saved.get();
+    }
+
+    private void save(int i, int time, File into, AtomicInteger saved) {
+        try {
+            ImageIO.write(render(time), "png", new File(into, String.format("frame%05d.png", i)));
+            saved.incrementAndGet();
+        } catch (IOException e) {
+            System.out.println("File Error! Could not write frame " + i + ".");
+        }
+    }
+
+    //draws one object onto the frame
+    private void draw(Graphics2D g, Storyboard s, SpriteEvaluator e, BufferedImage image,
+                      int time, int left) {
+        double opacity = Math.min(1, e.getOpacity(time));
+        double scale = e.getScale(time);
+        double sx = scale * e.get(SpriteEvaluator.Property.VECTOR_X, time);
+        double sy = scale * e.get(SpriteEvaluator.Property.VECTOR_Y, time);
+        if (e.isParameterOn(EventType.PH, time)) {
+            sx = -sx;
+        }
+        if (e.isParameterOn(EventType.PV, time)) {
+            sy = -sy;
+        }
+
+        //the origin is one of the 9 points of a 3x3 grid on the image
+        int origin = s.getOriginENUM().ordinal();
+        AffineTransform at = new AffineTransform();
+        at.translate(e.getX(time) + left, e.getY(time));
+        at.rotate(e.getRotation(time));
+        at.scale(sx, sy);
+        at.translate(-(origin % 3) * .5 * image.getWidth(), -(origin / 3) * .5 * image.getHeight());
+
+        BufferedImage tinted = tint(image, e.get(SpriteEvaluator.Property.RED, time),
+                e.get(SpriteEvaluator.Property.GREEN, time),
+                e.get(SpriteEvaluator.Property.BLUE, time));
+        g.setComposite(e.isParameterOn(EventType.PA, time)
+                ? new Additive((float) opacity)
+                : AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
+        g.drawImage(tinted, at, null);
+    }
+
+    //multiplies the image by a color (white leaves it alone)
+    private static BufferedImage tint(BufferedImage image, double r, double g, double b) {
+        if (r >= 255 && g >= 255 && b >= 255) {
+            return image;
+        }
+        float[] factors = {(float) (r / 255), (float) (g / 255), (float) (b / 255), 1f};
+        return new RescaleOp(factors, new float[4], null).filter(image, null);
+    }
+
+    //loads an image the first time it's needed
+    private BufferedImage image(String path) {
+        return images.computeIfAbsent(path, p -> {
+            try {
+                BufferedImage read = ImageIO.read(new File(folder, p));
+                if (read == null) {
+                    System.out.println("Couldn't read the image " + p + ".");
+                    return MISSING;
+                }
+                //one format for every image, so tinting and compositing are simple
+                BufferedImage argb = new BufferedImage(read.getWidth(), read.getHeight(),
+                        BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = argb.createGraphics();
+                g.drawImage(read, 0, 0, null);
+                g.dispose();
+                return argb;
+            } catch (IOException e) {
+                System.out.println("Couldn't load the image " + p + ".");
+                return MISSING;
+            }
+        });
+    }
+
+    //-----------------------------------------Additive---------------------------------------------
+
+    /**
+     * Adds the image's colors onto the frame (weighted by the image's
+     * alpha and the object's opacity), like osu!'s additive blending.
+     */
+    private static class Additive implements Composite {
+
+        private final float opacity;
+
+        Additive(float opacity) {
+            this.opacity = opacity;
+        }
+
+        public CompositeContext createContext(ColorModel source, ColorModel destination,
+                                              RenderingHints hints) {
+            boolean premultiplied = source.isAlphaPremultiplied();
+            boolean alpha = source.hasAlpha();
+            return new CompositeContext() {
+                public void compose(Raster src, Raster dstIn, WritableRaster dstOut) {
+                    int w = Math.min(src.getWidth(), dstIn.getWidth());
+                    int h = Math.min(src.getHeight(), dstIn.getHeight());
+                    int sb = src.getNumBands();
+                    int db = dstIn.getNumBands();
+                    int[] s = new int[w * sb];
+                    int[] d = new int[w * db];
+                    for (int y = 0; y < h; y++) {
+                        src.getPixels(src.getMinX(), src.getMinY() + y, w, 1, s);
+                        dstIn.getPixels(dstIn.getMinX(), dstIn.getMinY() + y, w, 1, d);
+                        for (int x = 0; x < w; x++) {
+                            double weight = opacity;
+                            if (alpha && !premultiplied) {
+                                weight *= s[x * sb + 3] / 255.0;
+                            }
+                            for (int c = 0; c < 3; c++) {
+                                int sum = d[x * db + c] + (int) (s[x * sb + c] * weight);
+                                d[x * db + c] = Math.min(255, sum);
+                            }
+                        }
+                        dstOut.setPixels(dstOut.getMinX(), dstOut.getMinY() + y, w, 1, d);
+                    }
+                }
+
+                public void dispose() {
+
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/**
+ * PreviousResolver.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Fills in the starting values of events that were made with the
+ * short methods (fade(easing, start, end, endOpacity), move(easing,
+ * start, end, endX, endY), ...), which take their starting values
+ * from whatever came before them.
+ *
+ * This used to happen right when the event was added, by walking
+ * backwards through every event the object already had. That was
+ * O(N) per event (so O(N^2) for a chain of them), and it only gave
+ * the right answer if events were added in order of start time.
+ * Now the events only get marked when they're added, and this pass
+ * fills all of them in at once when the object gets sealed (or
+ * written, or looked at). It goes through the events once, in order
+ * of start time, keeping track of the last value of every property:
+ *
+ * - opacity, from fades
+ * - x, from moves and moveXs
+ * - y, from moves and moveYs
+ * - scale, from scales and vector scales
+ * - rotation, from rotations
+ * - color, from colors
+ *
+ * An event takes its values from the event that started last out of
+ * the ones that had already ended by the time it starts, same as
+ * before, so events can now be added in any order.
+ *
+ * Changelog:
+ * 10/18/2026: Resolver created to replace previous checking on insert.
+ * 10/18/2026: Proportion warnings go to the DiagnosticLog sink.
+ * 10/18/2026: The waiting events are kept in int heaps instead of boxed queues.
+ * 10/18/2026: Resolved events are marked with setTookPrevious.
+ *
+ * @version 1.00
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class PreviousResolver {
+
+    //the properties that events take previous values from
+    private static final int OPACITY = 0;
+    private static final int X = 1;
+    private static final int Y = 2;
+    private static final int SCALE = 3;
+    private static final int ROTATION = 4;
+    private static final int COLOR = 5;
+    private static final int PROPERTIES = 6;
+
+    //passed in as the object id when warnings are left out
+    private static final int NO_WARNINGS = -2;
+
+    private PreviousResolver() {
+
+    }
+
+    /**
+     * Fills in the starting values of every marked event in the list,
+     * and unmarks them.
+     *
+     * @param events all of an object's events, sorted by start time
+     * @return how many events got resolved
+     */
+    public static int resolve(List<StoryboardEvent> events) {
+        return resolve(events, -1, true);
+    }
+
+    /**
+     * Same as resolve(events), but warnings say which object the
+     * events belong to, and can be left out.
+     *
+     * @param events all of an object's events, sorted by start time
+     * @param object the id of the object (see Storyboard.getId)
+     * @param warn   false to leave out proportion warnings (for objects
+     *               that leave their checking to a Validator)
+     * @return how many events got resolved
+     */
+    public static int resolve(final List<StoryboardEvent> events, int object, boolean warn) {
+        //for each property: the events that could set it, waiting in
+        //order of end time until an event starts after they end, and the
+        //index of the best (latest starting) one that has ended so far
+        Waiting[] waiting = new Waiting[PROPERTIES];
+        int[] last = new int[PROPERTIES];
+        for (int p = 0; p < PROPERTIES; p++) {
+            waiting[p] = new Waiting(events);
+            last[p] = -1;
+        }
+
+        int resolved = 0;
+        for (int i = 0; i < events.size(); i++) {
+            StoryboardEvent e = events.get(i);
+            if (e.usesPrevious()) {
+                int time = e.getStartTime();
+                apply(e, get(events, waiting, last, X, time), get(events, waiting, last, Y, time),
+                        get(events, waiting, last, property(e.getEventType()), time),
+                        warn ? object : NO_WARNINGS);
+                e.setUsesPrevious(false);
+                e.setTookPrevious(true);
+                resolved++;
+            }
+
+            switch (e.getEventType()) {
+                case M:
+                    waiting[X].add(i);
+                    waiting[Y].add(i);
+                    break;
+                case MX:
+                    waiting[X].add(i);
+                    break;
+                case MY:
+                    waiting[Y].add(i);
+                    break;
+                default: {
+                    int p = property(e.getEventType());
+                    if (p >= 0) {
+                        waiting[p].add(i);
+                    }
+                    break;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    //-----------------------------------------Helpers---------------------------------------------
+
+    //which property an event type sets, besides x and y
+    private static int property(EventType t) {
+        switch (t) {
+            case F:
+                return OPACITY;
+            case S:
+            case V:
+                return SCALE;
+            case R:
+                return ROTATION;
+            case C:
+                return COLOR;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Finds the event a property's value comes from at a time: the
+     * latest starting one out of those that have ended by then.
+     */
+    private static StoryboardEvent get(List<StoryboardEvent> events,
+                                       Waiting[] waiting, int[] last, int p, int time) {
+        if (p < 0) {
+            return null;
+        }
+        Waiting queue = waiting[p];
+        while (!queue.isEmpty() && events.get(queue.peek()).getEndTime() <= time) {
+            int i = queue.poll();
+            if (last[p] == -1 || events.get(i).getStartTime() >= events.get(last[p]).getStartTime()) {
+                last[p] = i;
+            }
+        }
+        return last[p] == -1 ? null : events.get(last[p]);
+    }
+
+    /**
+     * Copies the previous values into the event.
+     *
+     * @param e     the event to fill in
+     * @param x     where the x position comes from (a move or moveX), or null
+     * @param y     where the y position comes from (a move or moveY), or null
+     * @param other  where the event's own property comes from, or null
+     * @param object the id of the object, for warnings, or NO_WARNINGS
+     */
+    private static void apply(StoryboardEvent e, StoryboardEvent x, StoryboardEvent y,
+                              StoryboardEvent other, int object) {
+        switch (e.getEventType()) {
+            case F:
+                if (other != null) {
+                    ((FadeEvent) e).startingOpacity = ((FadeEvent) other).endingOpacity;
+                }
+                break;
+            case M: {
+                MoveEvent m = (MoveEvent) e;
+                if (x != null) {
+                    m.startX = ((MoveEvent) x).endX;
+                }
+                if (y != null) {
+                    m.startY = ((MoveEvent) y).endY;
+                }
+                break;
+            }
+            case MX: {
+                //the y values aren't printed, but are kept up to date
+                MoveEvent m = (MoveEvent) e;
+                if (x != null) {
+                    m.startX = ((MoveEvent) x).endX;
+                }
+                if (y != null) {
+                    m.startY = ((MoveEvent) y).endY;
+                    m.endY = m.startY;
+                }
+                break;
+            }
+            case MY: {
+                MoveEvent m = (MoveEvent) e;
+                if (y != null) {
+                    m.startY = ((MoveEvent) y).endY;
+                }
+                if (x != null) {
+                    m.startX = ((MoveEvent) x).endX;
+                    m.endX = m.startX;
+                }
+                break;
+            }
+            case S:
+                if (other instanceof ScaleEvent) {
+                    ((ScaleEvent) e).startScaling = ((ScaleEvent) other).endScaling;
+                } else if (other instanceof VectorEvent) {
+                    VectorEvent v = (VectorEvent) other;
+                    if (v.endY != v.endX && object != NO_WARNINGS) {
+                        DiagnosticLog.warn(Diagnostic.PROPORTION_DISAGREEMENT, object,
+                                e.getStartTime());
+                    }
+                    ((ScaleEvent) e).startScaling = v.endX;
+                }
+                break;
+            case V: {
+                VectorEvent v = (VectorEvent) e;
+                if (other instanceof VectorEvent) {
+                    v.startX = ((VectorEvent) other).endX;
+                    v.startY = ((VectorEvent) other).endY;
+                } else if (other instanceof ScaleEvent) {
+                    v.startX = ((ScaleEvent) other).endScaling;
+                    v.startY = ((ScaleEvent) other).endScaling;
+                }
+                break;
+            }
+            case R:
+                if (other != null) {
+                    ((RotationEvent) e).startAngle = ((RotationEvent) other).endAngle;
+                }
+                break;
+            case C:
+                if (other != null) {
+                    ColorEvent c = (ColorEvent) e;
+                    ColorEvent from = (ColorEvent) other;
+                    c.r1 = from.r2;
+                    c.g1 = from.g2;
+                    c.b1 = from.b2;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    //-----------------------------------------Waiting---------------------------------------------
+
+    /**
+     * A min-heap of event indices, by end time and then by index.
+     */
+    private static final class Waiting {
+
+        private final List<StoryboardEvent> events;
+        private int[] heap = new int[16];
+        private int size = 0;
+
+        Waiting(List<StoryboardEvent> events) {
+            this.events = events;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peek() {
+            return heap[0];
+        }
+
+        void add(int i) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int k = size++;
+            while (k > 0) {
+                int parent = (k - 1) >>> 1;
+                if (!before(i, heap[parent])) {
+                    break;
+                }
+                heap[k] = heap[parent];
+                k = parent;
+            }
+            heap[k] = i;
+        }
+
+        int poll() {
+            int top = heap[0];
+            int moved = heap[--size];
+            int k = 0;
+            int half = size >>> 1;
+            while (k < half) {
+                int child = 2 * k + 1;
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], moved)) {
+                    break;
+                }
+                heap[k] = heap[child];
+                k = child;
+            }
+            heap[k] = moved;
+            return top;
+        }
+
+        private boolean before(int a, int b) {
+            int byEnd = Integer.compare(events.get(a).getEndTime(), events.get(b).getEndTime());
+            return byEnd != 0 ? byEnd < 0 : a < b;
+        }
+    }
+}
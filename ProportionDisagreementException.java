@@ -19,6 +19,8 @@
  *
  * Changelog:
  * 1/24/2015: Exception created.
+ * 10/18/2026: The message lives in Diagnostic now; warnings are reported through
+ * DiagnosticLog instead of throwing this.
  *
  * @author Erina
  * @version 1.00
@@ -27,10 +29,6 @@
 public class ProportionDisagreementException extends Exception {
 
     public ProportionDisagreementException(int time) {
-        super("WARNING: The length and height of an object " +
-                "does not match its original proportions when a " +
-                "normal scale event occurred.\nThis may result in " +
-                "skewed proportions and unintended results. This warning " +
-                "occurred at time " + time + ".");
+        super(Diagnostic.PROPORTION_DISAGREEMENT.message(time));
     }
 }
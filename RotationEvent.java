@@ -25,10 +25,13 @@
  *
  * Changelog:
  * 1/27/2015: Finished draft.
+ * 10/18/2026: previousChecking removed, PreviousResolver fills in the previous values.
  *
  * @author Erina
  * @version 1.00
  */
+import java.io.IOException;
+
 public class RotationEvent extends StoryboardEvent {
 
     protected double startAngle = 0;
@@ -54,29 +57,9 @@ public class RotationEvent extends StoryboardEvent {
         return endAngle;
     }
 
-    /**
-     * Previous checking for rotation.
-     *
-     * @param o storyboard event to be compared with, and to
-     *          attempt to extract previous values out of
-     * @return true if values were obtained, false if this event
-     * cannot take the previous values from the other (maybe
-     * due to the fact that the other event doesn't come previous
-     * to current, or if the event type aren't the same).
-     */
-    public boolean previousChecking(StoryboardEvent o) {
-        if (o instanceof RotationEvent) {
-            RotationEvent r = (RotationEvent) o;
-            if (r.getEndTime() <= this.startTime) {
-                this.startAngle = r.getEndAngle();
-                return true;
-            }
-        }
-        return false;
-    }
-
-    public String toString() {
-        return " R," + easing + "," + startTime + "," + endTime +
-                "," + startAngle + "," + endAngle;
+    public void writeTo(Appendable out) throws IOException {
+        writeCommon(out, "R");
+        OsbFormat.field(out, startAngle);
+        OsbFormat.field(out, endAngle);
     }
 }
@@ -37,11 +37,15 @@
  *
  * Changelog:
  * 1/27/2015: Finished draft.
+ * 10/18/2026: Proportion warnings go to the DiagnosticLog sink.
+ * 10/18/2026: previousChecking removed, PreviousResolver fills in the previous values.
  *
  * @author Erina
  * @version 1.00
  */
 
+import java.io.IOException;
+
 public class ScaleEvent extends StoryboardEvent {
 
     protected double startScaling = 0;
@@ -67,49 +71,9 @@ public class ScaleEvent extends StoryboardEvent {
         return endScaling;
     }
 
-    /**
-     * Previous checking for Scale Event. This is a lot more
-     * complex since the program checks to make sure that
-     * the previous values for scaling (if from a vector event)
-     * have the same x ratio and y ratio proportions. If not,
-     * an exception/warning is thrown.
-     *
-     * Scale Event can take previous values from both
-     * scale and vectorScale.
-     *
-     * @param o storyboard event to be compared with, and to
-     *          attempt to extract previous values out of
-     * @return true if values were obtained, false if this event
-     * cannot take the previous values from the other (maybe
-     * due to the fact that the other event doesn't come previous
-     * to current, or if the event type aren't the same).
-     */
-    public boolean previousChecking(StoryboardEvent o) {
-        if (o instanceof ScaleEvent) {
-            ScaleEvent s = (ScaleEvent) o;
-            if (s.getEndTime() <= this.startTime) {
-                this.startScaling = s.getEndScaling();
-                return true;
-            }
-        } else if (o instanceof VectorEvent) {
-            VectorEvent v = (VectorEvent) o;
-            if (v.getEndTime() <= this.startTime) {
-                try {
-                    if (v.getEndY() != v.getEndX()) {
-                        throw new ProportionDisagreementException(this.startTime);
-                    }
-                } catch (ProportionDisagreementException e) {
-                    System.out.println(e.getMessage());
-                }
-                this.startScaling = v.getEndX();
-                return true;
-            }
-        }
-        return false;
-    }
-
-    public String toString() {
-        return " S," + easing + "," + startTime + "," + endTime +
-                "," + startScaling + "," + endScaling;
+    public void writeTo(Appendable out) throws IOException {
+        writeCommon(out, "S");
+        OsbFormat.field(out, startScaling);
+        OsbFormat.field(out, endScaling);
     }
 }
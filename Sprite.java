@@ -124,17 +124,32 @@
  *
  * Changelog:
  * 1/24/2015: Finished first draft. Application appears to work as intended.
+ * 10/18/2026: toString now runs through the streaming writeTo.
+ * 10/18/2026: Added compact mode, which stores events in EventColumns.
+ * 10/18/2026: Compact mode stores events back after their previous values are filled in.
+ * 10/18/2026: Compact mode takes bulk batches through storeSorted.
+ * 10/18/2026: compareTo goes through getStartTime, so concurrent events get merged first.
+ * 10/18/2026: Sprites playing a shared Timeline skip the compact columns.
+ * 10/18/2026: Sprites can be instanced (see Storyboard.instance).
+ * 10/18/2026: compareTo moved up to Storyboard.
+ * 10/18/2026: Compact mode keeps duplicates while validating is off.
  *
  * @author Erina
  * @version 1.00
  */
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
 public class Sprite extends Storyboard implements Comparable<Storyboard> {
 
+    //the compact event storage, only used when the sprite is made in compact mode
+    private EventColumns columns;
+
     //-----------------------------------------Constructors---------------------------------------------
 
     /**
@@ -152,6 +167,29 @@ public class Sprite extends Storyboard implements Comparable<Storyboard> {
      */
     public Sprite(Layer layer, Origin origin, String filePath,
                   int x, int y) {
+        this(layer, origin, filePath, x, y, false);
+    }
+
+    /**
+     * Constructor for Sprite that can turn on compact mode.
+     *
+     * In compact mode the sprite doesn't keep an object for each
+     * event. Every event gets copied into a few primitive arrays
+     * instead (see EventColumns), which takes several times less
+     * memory for sprites with tons of events and is faster to write out.
+     * All of the event methods (fade, move, scale, ...) work the same.
+     *
+     * @param layer    the layer that the sprite is on
+     * @param origin   sets a marker that determines at what position
+     *                 events are applied to the image
+     * @param filePath location of the sprite with respect to the
+     *                 folder that the storyboard is located.
+     * @param x        initial x position of the sprite
+     * @param y        initial y position of the sprite
+     * @param compact  true to store events in compact mode
+     */
+    public Sprite(Layer layer, Origin origin, String filePath,
+                  int x, int y, boolean compact) {
         this.layer = layer;
         this.origin = origin;
         this.filePath = filePath;
@@ -160,8 +198,12 @@ public class Sprite extends Storyboard implements Comparable<Storyboard> {
         this.startTime = -1;
 
         //TreeMap to store the events for the sprite in order of the time
-        //that they appear in.
-        compilation = new TreeSet<StoryboardEvent>();
+        //that they appear in. Compact mode uses the columns instead.
+        if (compact) {
+            columns = new EventColumns();
+        } else {
+            compilation = new TreeSet<StoryboardEvent>();
+        }
     }
 
     /**
@@ -183,21 +225,127 @@ public class Sprite extends Storyboard implements Comparable<Storyboard> {
      */
 
     /**
-     * The default to string method, which prints out the stuff onto
-     * the text file.
+     * The default to string method, which gives back the same text
+     * that gets printed onto the text file. The Writer doesn't use
+     * this anymore (it streams through writeTo), but it's still
+     * handy for debugging.
      *
      * @return the text to be printed into the SB file
      */
     public String toString() {
-        String printing = "Sprite," + layer + "," + origin + "," +
-                "\"" + filePath + "\"" + "," + x + "," + y;
+        StringBuilder printing = new StringBuilder(64 + 40 * getEventCount());
+        try {
+            writeTo(printing);
+        } catch (IOException e) {
+            //StringBuilder never actually throws this
+        }
+        return printing.toString();
+    }
 
-        for (Object e : compilation) {
-            printing += "\n";
-            printing += e.toString();
+    /**
+     * @return true if this sprite stores its events in compact mode
+     */
+    public boolean isCompact() {
+        return columns != null;
+    }
+
+    //-----------------------------------------Compact mode---------------------------------------------
+
+    /**
+     * The hooks below send events to the columns instead of the
+     * compilation when the sprite is in compact mode. Duplicates
+     * (same type, same start time) get turned away, just like the
+     * TreeSet does, unless validating is off.
+     */
+
+    protected boolean store(StoryboardEvent event) {
+        if (columns == null) {
+            return super.store(event);
+        }
+        if (validating && indexFor(event.getEventType()).containsStart(event.getStartTime())) {
+            return false;
         }
+        columns.add(event);
+        return true;
+    }
 
-        return printing;
+    protected void clearEvents() {
+        if (columns == null) {
+            super.clearEvents();
+        } else {
+            columns = new EventColumns();
+        }
+    }
+
+    protected void storeSorted(List<StoryboardEvent> events) {
+        if (columns == null) {
+            super.storeSorted(events);
+            return;
+        }
+        for (StoryboardEvent e : events) {
+            columns.add(e);
+        }
+    }
+
+    protected void storeResolved(List<StoryboardEvent> events) {
+        //the columns handed out copies, so put the filled in ones back
+        if (columns != null) {
+            replaceEvents(events);
+        }
+    }
+
+    protected void writeEvents(Appendable out) throws IOException {
+        if (columns == null) {
+            super.writeEvents(out);
+            return;
+        }
+        for (int row : columns.order()) {
+            out.append('\n');
+            columns.writeRow(out, row);
+        }
+    }
+
+    public Collection<StoryboardEvent> getEvents() {
+        if (columns == null || timeline != null) {
+            return super.getEvents();
+        }
+        seal();
+        return Collections.unmodifiableList(columns.toList());
+    }
+
+    public int getEventCount() {
+        if (columns == null || timeline != null) {
+            return super.getEventCount();
+        }
+        seal();
+        return columns.size();
+    }
+
+    /**
+     * Writes the Sprite declaration line:
+     * Sprite,layer,origin,"filePath",x,y
+     *
+     * @param out where the line gets written
+     * @throws IOException if the Appendable fails to write
+     */
+    protected void writeHeader(Appendable out) throws IOException {
+        out.append("Sprite,").append(layer.toString()).append(',')
+                .append(origin.toString()).append(",\"").append(filePath)
+                .append('"');
+        OsbFormat.field(out, x);
+        OsbFormat.field(out, y);
+    }
+
+    public Sprite instance(EventTransform transform) {
+        return (Sprite) super.instance(transform);
+    }
+
+    public Sprite instance(int timeShift, int dx, int dy) {
+        return (Sprite) super.instance(timeShift, dx, dy);
+    }
+
+    protected Sprite blank(EventTransform transform) {
+        return new Sprite(layer, origin, filePath, transform.x(x), transform.y(y));
     }
 
     /**
@@ -241,30 +389,6 @@ public class Sprite extends Storyboard implements Comparable<Storyboard> {
         return result;
     }
 
-    /**
-     * Compares two different Sprites with each other, this will
-     * ultimately and most importantly used to figure
-     * out which sprite will be printed first. The natural
-     * ordering of sprites is based on when their first
-     * event occurs.
-     *
-     * @param other the sprite that we're comparing to
-     * @return negative if this is less than other object,
-     * zero if equal, and positive if greater.
-     */
-    public int compareTo(Storyboard other) {
-        if (this.layer.compareTo(other.getLayerENUM()) < 0) {
-            return -1;
-        } else if (this.layer.compareTo(other.getLayerENUM()) > 0) {
-            return 1;
-        } else {
-            if (other instanceof Sprite) {
-                return this.startTime - other.getStartTime();
-            }
-            return -1;
-        }
-    }
-
     //-----------------------------------------Testing---------------------------------------------
 
 }
\ No newline at end of file
@@ -0,0 +1,456 @@
+/**
+ * SpriteCuller.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * A pass that throws away work nobody can see. osu! still has to
+ * handle every sprite and command while the map plays, even ones
+ * that are fully transparent at the time, so pruning them makes the
+ * storyboard cheaper to draw for everyone playing it.
+ *
+ * For every object, the culler works out the time ranges where it
+ * can't be seen because:
+ *
+ * - its opacity is 0 (F),
+ * - its scale is 0 (S), or one side of its vector scale is 0 (V),
+ * - it's entirely outside the 640x480 play area (M/MX/MY). We don't
+ * know how big the textures are, so this one is off by default. Turn
+ * it on with setOffscreenMargin, giving how far past the edge the
+ * position has to be before the whole image is gone.
+ *
+ * Then it drops every command that only changes things during those
+ * ranges, and drops objects that are never visible at all.
+ *
+ * A command is only dropped when the range it affects is hidden by
+ * something with a higher priority than itself: fades before scales,
+ * scales before vector scales, those before moves, and all of them
+ * before rotations and colors. That way two commands can never be
+ * dropped because of each other (like a fade to 0 and a scale to 0
+ * over the same time). Fades themselves, parameters, and the commands
+ * that mark when the object appears or disappears are always kept.
+ *
+ * Changelog:
+ * 10/18/2026: Culler created.
+ * 10/18/2026: Takes loops into account.
+ *
+ * @version 1.00
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+
+public class SpriteCuller {
+
+    public static final int SCREEN_WIDTH = 640;
+    public static final int SCREEN_HEIGHT = 480;
+
+    //how far outside the screen a position has to be to count as hidden,
+    //or -1 to not cull by position
+    private int offscreenMargin = -1;
+
+    private long culledObjects = 0;
+    private long culledCommands = 0;
+
+    public SpriteCuller() {
+
+    }
+
+    /**
+     * Makes a culler that also culls by position.
+     *
+     * @param offscreenMargin how far past the edge of the play area
+     *                        the position has to be (see setOffscreenMargin)
+     */
+    public SpriteCuller(int offscreenMargin) {
+        this.offscreenMargin = offscreenMargin;
+    }
+
+    public int getOffscreenMargin() {
+        return offscreenMargin;
+    }
+
+    /**
+     * Turns on culling by position. The object counts as off-screen
+     * when its position is more than margin pixels outside the play
+     * area, so the margin should be at least as big as the biggest
+     * texture (after scaling) that you use, plus the widescreen
+     * area (107px on each side) if you care about it.
+     *
+     * @param offscreenMargin the margin in pixels, or -1 to turn it off
+     */
+    public void setOffscreenMargin(int offscreenMargin) {
+        this.offscreenMargin = offscreenMargin;
+    }
+
+    /**
+     * @return how many objects have been culled by this culler so far
+     */
+    public long getCulledObjects() {
+        return culledObjects;
+    }
+
+    /**
+     * @return how many commands have been culled by this culler so far
+     */
+    public long getCulledCommands() {
+        return culledCommands;
+    }
+
+    //-----------------------------------------Culling---------------------------------------------
+
+    /**
+     * Culls every object in the list.
+     *
+     * @param objects the storyboard objects to cull
+     * @return the objects that are still visible at some point, in
+     * the same order
+     */
+    public ArrayList<Storyboard> cull(Collection<? extends Storyboard> objects) {
+        ArrayList<Storyboard> visible = new ArrayList<Storyboard>(objects.size());
+        for (Storyboard s : objects) {
+            if (cull(s)) {
+                visible.add(s);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Drops the commands of one object that only affect times where
+     * it can't be seen.
+     *
+     * @param object the storyboard object to cull
+     * @return false if the object is never visible and should be
+     * left out of the storyboard altogether
+     */
+    public boolean cull(Storyboard object) {
+        Collection<StoryboardEvent> events = object.getEvents();
+        if (events.isEmpty()) {
+            culledObjects++;
+            return false;
+        }
+
+        //the object only exists from its first command to its last one
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        EnumMap<EventType, List<StoryboardEvent>> byType =
+                new EnumMap<EventType, List<StoryboardEvent>>(EventType.class);
+        for (StoryboardEvent e : events) {
+            first = Math.min(first, e.getStartTime());
+            last = Math.max(last, e.getEndTime());
+            List<StoryboardEvent> list = byType.get(e.getEventType());
+            if (list == null) {
+                list = new ArrayList<StoryboardEvent>();
+                byType.put(e.getEventType(), list);
+            }
+            list.add(e);
+        }
+        int from = first;
+        int to = last + 1;
+
+        //what the loops do counts towards visibility too, so unroll them
+        //for working out the hidden ranges. Types used inside loops don't
+        //get dropped, since the loops change them between the commands.
+        EnumMap<EventType, List<StoryboardEvent>> timeline = byType;
+        EnumSet<EventType> looped = EnumSet.noneOf(EventType.class);
+        if (byType.containsKey(EventType.L)) {
+            timeline = new EnumMap<EventType, List<StoryboardEvent>>(EventType.class);
+            for (List<StoryboardEvent> list : byType.values()) {
+                timeline.put(list.get(0).getEventType(), new ArrayList<StoryboardEvent>(list));
+            }
+            for (StoryboardEvent loop : byType.get(EventType.L)) {
+                for (StoryboardEvent c : ((LoopEvent) loop).expand()) {
+                    looped.add(c.getEventType());
+                    List<StoryboardEvent> list = timeline.get(c.getEventType());
+                    if (list == null) {
+                        list = new ArrayList<StoryboardEvent>();
+                        timeline.put(c.getEventType(), list);
+                    }
+                    list.add(c);
+                }
+            }
+            for (EventType t : looped) {
+                Collections.sort(timeline.get(t), (a, b) -> a.getStartTime() - b.getStartTime());
+            }
+        }
+
+        //hidden[p] holds the times hidden by everything with priority below p
+        Factor zero = new Zero();
+        Spans[] hidden = new Spans[5];
+        hidden[0] = new Spans();
+        hidden[1] = hidden[0].union(hiddenBy(timeline, from, to, zero, EventType.F, 0, null, 0));
+        hidden[2] = hidden[1].union(hiddenBy(timeline, from, to, zero, EventType.S, 0, null, 0));
+        hidden[3] = hidden[2].union(hiddenBy(timeline, from, to, zero, EventType.V, 0, null, 0))
+                .union(hiddenBy(timeline, from, to, zero, EventType.V, 1, null, 0));
+        hidden[4] = hidden[3];
+        if (offscreenMargin >= 0) {
+            Factor x = new Outside(-offscreenMargin, SCREEN_WIDTH + offscreenMargin);
+            Factor y = new Outside(-offscreenMargin, SCREEN_HEIGHT + offscreenMargin);
+            hidden[4] = hidden[4]
+                    .union(hiddenBy(timeline, from, to, x, EventType.M, 0, EventType.MX, 0))
+                    .union(hiddenBy(timeline, from, to, y, EventType.M, 1, EventType.MY, 0));
+        }
+
+        if (hidden[4].covers(from, to)) {
+            culledObjects++;
+            culledCommands += events.size();
+            return false;
+        }
+
+        ArrayList<StoryboardEvent> kept = new ArrayList<StoryboardEvent>(events.size());
+        int dropped = 0;
+        for (List<StoryboardEvent> list : byType.values()) {
+            int p = priority(list.get(0).getEventType());
+            if (p < 0 || hidden[p].isEmpty() || overlapping(list)
+                    || looped.contains(list.get(0).getEventType())) {
+                kept.addAll(list);
+                continue;
+            }
+            for (int i = 0; i < list.size(); i++) {
+                StoryboardEvent e = list.get(i);
+
+                //the times this command decides the value for: from its start
+                //(or the object's start if it's the first one) until the next
+                //command of the same type takes over
+                int a = i == 0 ? from : e.getStartTime();
+                int b = i + 1 < list.size() ? list.get(i + 1).getStartTime() : to;
+                if (e.getStartTime() != first && e.getEndTime() != last && hidden[p].covers(a, b)) {
+                    dropped++;
+                } else {
+                    kept.add(e);
+                }
+            }
+        }
+
+        if (dropped > 0) {
+            Collections.sort(kept, (a, b) -> a.getStartTime() - b.getStartTime());
+            object.replaceEvents(kept);
+            culledCommands += dropped;
+        }
+        return true;
+    }
+
+    //-----------------------------------------Helpers---------------------------------------------
+
+    /**
+     * Which hidden ranges a command type can be dropped in, as an
+     * index into the hidden array, or -1 if it's never dropped.
+     */
+    private static int priority(EventType t) {
+        switch (t) {
+            case S:
+                return 1;
+            case V:
+                return 2;
+            case M:
+            case MX:
+            case MY:
+                return 3;
+            case R:
+            case C:
+                return 4;
+            default:
+                return -1;
+        }
+    }
+
+    //true if any two commands in the list (sorted by start) run into each other
+    private static boolean overlapping(List<StoryboardEvent> list) {
+        for (int i = 1; i < list.size(); i++) {
+            if (list.get(i).getStartTime() < list.get(i - 1).getEndTime()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Works out where one property keeps the object hidden. The
+     * property is given as up to two (event type, channel) pairs, like
+     * (M, 0) and (MX, 0) for the x position, with a null second type
+     * if there's only one. Before its first command
+     * the property has that command's starting value, between commands
+     * it keeps the last ending value, and during a command it moves from
+     * the start value to the end value.
+     */
+    private static Spans hiddenBy(EnumMap<EventType, List<StoryboardEvent>> byType,
+                                  int from, int to, Factor factor,
+                                  EventType type, int channel, EventType type2, int channel2) {
+        ArrayList<StoryboardEvent> list = new ArrayList<StoryboardEvent>();
+        if (byType.containsKey(type)) {
+            list.addAll(byType.get(type));
+        }
+        if (type2 != null && byType.containsKey(type2)) {
+            list.addAll(byType.get(type2));
+        }
+        Spans spans = new Spans();
+        if (list.isEmpty()) {
+            return spans;
+        }
+        if (type2 != null) {
+            Collections.sort(list, (a, b) -> a.getStartTime() - b.getStartTime());
+        }
+        if (overlapping(list)) {
+            //can't tell which command wins, so don't guess
+            return spans;
+        }
+
+        double[] values = new double[3];
+        int at = from;
+        int[] channels = new int[EventType.values().length];
+        channels[type.ordinal()] = channel;
+        if (type2 != null) {
+            channels[type2.ordinal()] = channel2;
+        }
+        double held = value(list.get(0), channels, values, true);
+        for (StoryboardEvent e : list) {
+            if (factor.hides(held)) {
+                spans.add(at, e.getStartTime());
+            }
+            double start = value(e, channels, values, true);
+            double end = value(e, channels, values, false);
+            if (factor.hides(start, end, e.getEasing())) {
+                spans.add(e.getStartTime(), e.getEndTime());
+            }
+            at = e.getEndTime();
+            held = end;
+        }
+        if (factor.hides(held)) {
+            spans.add(at, to);
+        }
+        return spans;
+    }
+
+    //reads the value of the channel that belongs to the event's type
+    private static double value(StoryboardEvent e, int[] channels, double[] values,
+                                boolean start) {
+        if (start) {
+            EventValues.startValues(e, values);
+        } else {
+            EventValues.endValues(e, values);
+        }
+        return values[channels[e.getEventType().ordinal()]];
+    }
+
+    /**
+     * A rule for when a property's value makes the object invisible.
+     */
+    private abstract static class Factor {
+        //does holding this value hide the object?
+        abstract boolean hides(double value);
+
+        //does going from start to end with this easing hide it the whole time?
+        abstract boolean hides(double start, double end, int easing);
+    }
+
+    //opacity or scale: hidden only at exactly 0
+    private static class Zero extends Factor {
+        boolean hides(double value) {
+            return value == 0;
+        }
+
+        boolean hides(double start, double end, int easing) {
+            return start == 0 && end == 0;
+        }
+    }
+
+    //position: hidden outside [low, high]
+    private static class Outside extends Factor {
+        private final double low;
+        private final double high;
+
+        Outside(double low, double high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        boolean hides(double value) {
+            return value < low || value > high;
+        }
+
+        boolean hides(double start, double end, int easing) {
+            //elastic and back easings overshoot, so the
+            //position could pass through the screen on the way
+            if (Easing.overshoots(easing)) {
+                return false;
+            }
+            return (start < low && end < low) || (start > high && end > high);
+        }
+    }
+
+    /**
+     * A sorted set of [start, end) time ranges that don't touch each other.
+     */
+    private static class Spans {
+        private int[] starts = new int[4];
+        private int[] ends = new int[4];
+        private int size = 0;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        //adds a range that starts at or after every range already in here
+        void add(int start, int end) {
+            if (start >= end) {
+                return;
+            }
+            if (size > 0 && start <= ends[size - 1]) {
+                ends[size - 1] = Math.max(ends[size - 1], end);
+                return;
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        Spans union(Spans other) {
+            if (other.isEmpty()) {
+                return this;
+            }
+            Spans result = new Spans();
+            int i = 0;
+            int j = 0;
+            while (i < size || j < other.size) {
+                if (j == other.size || (i < size && starts[i] <= other.starts[j])) {
+                    result.add(starts[i], ends[i]);
+                    i++;
+                } else {
+                    result.add(other.starts[j], other.ends[j]);
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        //is all of [start, end) inside one range?
+        boolean covers(int start, int end) {
+            if (start >= end) {
+                return false;
+            }
+            int lo = 0;
+            int hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] <= start) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return hi >= 0 && ends[hi] >= end;
+        }
+    }
+}
@@ -94,16 +94,21 @@
  */
 
 /**
- * WARNING: Although we are using a sorted collection so you don't necessarily have to
- * enter events in the order that they start (time-wise), you still want to group
- * all same types of events together especially if you're using the program's
- * memory to infer the previous values (such as previous position, opacity, etc.)
- * If the events of that type aren't in order, the code will be using the wrong
- * previous values!
+ * NOTE: Previous values (previous position, opacity, etc.) used to be looked up
+ * the moment an event was added, so events had to be entered in the order that
+ * they start. They are now filled in all at once when the object is sealed
+ * (see seal() and PreviousResolver), so you can add events in any order.
  */
 
-import java.util.Set;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Storyboard.java
@@ -133,6 +138,25 @@ import java.util.TreeSet;
  * 1/23/2015: First draft interface created. Outlines basic functions used by sprites.
  * 1/24/2015: Changed to abstract class to work with Comparable interface.
  * 1/27/2015: Moved over all universal methods
+ * 10/18/2026: Overlap/duplicate checking now goes through a per-type EventIndex.
+ * 10/18/2026: Added writeTo for streaming objects out without building Strings.
+ * 10/18/2026: Event storage goes through store/previousCheck/getEvents hooks.
+ * 10/18/2026: Added loops (L).
+ * 10/18/2026: Added evaluator() for looking up the object's state at any time.
+ * 10/18/2026: Previous values are filled in by one pass at seal() instead of on insert.
+ * 10/18/2026: Duplicates are turned away by the index, not by compareTo; events get
+ * sequence numbers.
+ * 10/18/2026: Added bulk mode (beginBulk), which sorts and checks a whole batch at seal().
+ * 10/18/2026: Warnings go to the DiagnosticLog sink instead of through caught exceptions;
+ * objects get ids.
+ * 10/18/2026: Added setValidating(false), which leaves the checking to a Validator.
+ * 10/18/2026: Added concurrent mode (beginConcurrent) for filling one object from many threads.
+ * 10/18/2026: Objects can play a shared, interned Timeline (share/useTimeline), copied on write.
+ * 10/18/2026: Added instance(), which makes a moved copy of an object that shares its commands.
+ * 10/18/2026: compareTo moved here from Sprite, so different kinds of objects sort together.
+ * 10/18/2026: storeSorted adds the batch with TreeSet.addAll, without the SortedSet wrapper.
+ * 10/18/2026: useTimeline turns away mirroring objects that only flip some of the time.
+ * 10/18/2026: With validating off, store and replaceEvents don't use the index at all.
  *
  * @author Erina
  * @version 1.00
@@ -207,10 +231,35 @@ public abstract class Storyboard implements Comparable<Storyboard> {
     protected Origin origin;
     protected String filePath = "";
     protected TreeSet<StoryboardEvent> compilation;
+    protected EnumMap<EventType, EventIndex> eventIndex =
+            new EnumMap<EventType, EventIndex>(EventType.class);
     protected int x = 0;
     protected int y = 0;
     protected int startTime = 0;
 
+    //true if some events are still waiting for their previous values
+    protected boolean unresolved = false;
+
+    //the sequence number the next stored event gets
+    protected long nextSequence = 0;
+
+    //events added in bulk mode, waiting for seal(); null when not in bulk mode
+    protected EventColumns bulk;
+
+    //events added from several threads, waiting for seal(); null when not in concurrent mode
+    protected volatile EventStripes stripes;
+
+    //the shared events this object plays, and how it moves them; null if it has its own
+    protected Timeline timeline;
+    protected EventTransform transform = EventTransform.IDENTITY;
+
+    //false to skip duplicate/overlap checking while events are added
+    protected boolean validating = true;
+
+    //tells objects apart in warnings, in the order they were made
+    private static final AtomicInteger ids = new AtomicInteger();
+    protected final int id = ids.getAndIncrement();
+
     //-----------------------------------------Helper Methods---------------------------------------------
 
     /**
@@ -224,8 +273,8 @@ public abstract class Storyboard implements Comparable<Storyboard> {
      * the current events. It checks to see if there are multiple
      * events of the same type that start at the same time,
      * events of the same type that overlap with their start+end times,
-     * and makes an attempt to grab the previous values of the last event
-     * that occurred and stores them in as the start values for the event
+     * and marks the event to grab the previous values of the last event
+     * that occurred as its start values (filled in at seal())
      * if the user specifies for the event to do so.
      *
      * Also, if the event
@@ -245,6 +294,22 @@ public abstract class Storyboard implements Comparable<Storyboard> {
      *                      previous values of the same event
      */
     public void addToCompilation(StoryboardEvent event, boolean previousCheck) {
+        //a shared timeline can't be changed, so get an own copy first
+        if (timeline != null) {
+            unshare();
+        }
+
+        //in concurrent mode, this is all that happens. Nothing else about
+        //the object gets touched until seal() merges the stripes.
+        EventStripes s = stripes;
+        if (s != null) {
+            if (previousCheck) {
+                event.setUsesPrevious(true);
+            }
+            s.add(event);
+            return;
+        }
+
         int temp = event.getStartTime();
 
         //if this event starts earlier than the current starting time of the object,
@@ -253,36 +318,557 @@ public abstract class Storyboard implements Comparable<Storyboard> {
             this.startTime = temp;
         }
 
-        //add the event into the compilation!
-        compilation.add(event);
+        //in bulk mode the event just gets copied to the end of the
+        //buffer. All of the checking happens in one go at seal().
+        if (bulk != null) {
+            if (previousCheck) {
+                event.setUsesPrevious(true);
+            }
+            bulk.add(event);
+            return;
+        }
+
+        //with validating off nothing gets checked or indexed,
+        //a Validator can do all of that later on.
+        if (!validating) {
+            if (previousCheck) {
+                event.setUsesPrevious(true);
+            }
+            event.setSequence(nextSequence++);
+            if (store(event)) {
+                unresolved |= event.usesPrevious();
+            }
+            return;
+        }
+
+        //overlap checking AND duplicate checking, done against the interval
+        //index of this event's type only. This used to loop through the
+        //whole compilation for every single event (O(n^2) for a sprite),
+        //now it only looks at the handful of events that could collide.
+        EventIndex index = indexFor(event.getEventType());
+        boolean duplicate = index.containsStart(temp);
+        boolean overlap = index.overlaps(temp, event.getEndTime());
+
+        //Previous check, if the user specifies for it. The event only gets
+        //marked here. The values of the same event type that happened
+        //previously are filled in for every marked event at once, when the
+        //object gets sealed, so it doesn't matter what order events come in.
+        if (previousCheck) {
+            event.setUsesPrevious(true);
+        }
+
+        //add the event into the compilation! Only index it if it
+        //actually got stored.
+        event.setSequence(nextSequence++);
+        if (store(event)) {
+            index.add(temp, event.getEndTime());
+            unresolved |= event.usesPrevious();
+        }
+
+        if (overlap) {
+            DiagnosticLog.warn(Diagnostic.EVENT_OVERLAP, id, temp);
+        }
+        if (duplicate) {
+            DiagnosticLog.warn(Diagnostic.DUPLICATE_EVENT, id, temp);
+        }
+
+    }
+
+    /**
+     * Stores an event in this object. By default that means adding
+     * it to the compilation TreeSet, but subclasses with a different
+     * way of storing events (like the compact mode of Sprite) override this.
+     * An event of the same type that starts at the same time as one
+     * that's already stored is a duplicate, and gets turned away,
+     * unless validating is off (then it's stored like any other).
+     *
+     * @param event the event to store
+     * @return true if it was stored, false if it was rejected (as a duplicate)
+     */
+    protected boolean store(StoryboardEvent event) {
+        if (validating && indexFor(event.getEventType()).containsStart(event.getStartTime())) {
+            return false;
+        }
+        return compilation.add(event);
+    }
+
+    /**
+     * Throws away every stored event, so that a new set can be
+     * stored. Subclasses that store events somewhere else override this.
+     */
+    protected void clearEvents() {
+        compilation.clear();
+    }
+
+    /**
+     * Swaps out all of this object's events for a new set, for
+     * passes that rewrite events (like CommandOptimizer). The new
+     * events are taken as they are: no warnings, no previous checking.
+     * The object's start time is worked out again from the new events.
+     * With validating off, duplicates are kept and no index is built,
+     * the same as when they're added.
+     *
+     * @param events the events that replace the current ones
+     */
+    public void replaceEvents(Collection<StoryboardEvent> events) {
+        clearEvents();
+        eventIndex.clear();
+        timeline = null;
+        bulk = null;
+        stripes = null;
+        startTime = -1;
+        for (StoryboardEvent e : events) {
+            if (startTime == -1 || startTime > e.getStartTime()) {
+                startTime = e.getStartTime();
+            }
+            e.setSequence(nextSequence++);
+            if (store(e)) {
+                if (validating) {
+                    indexFor(e.getEventType()).add(e.getStartTime(), e.getEndTime());
+                }
+                unresolved |= e.usesPrevious();
+            }
+        }
+    }
+
+    /**
+     * Fills in the previous values of every event that asked for
+     * them, with one pass over the events (see PreviousResolver).
+     * Writing the object or looking at its events does this on its
+     * own, so you only need to call it yourself if you want it done
+     * at a certain point. Does nothing if there's nothing to fill in.
+     */
+    public void seal() {
+        if (stripes != null) {
+            EventColumns rows = stripes.drain();
+            stripes = null;
+            for (int row = 0; row < rows.size(); row++) {
+                if (startTime == -1 || startTime > rows.getStartTime(row)) {
+                    startTime = rows.getStartTime(row);
+                }
+            }
+            storeBulk(rows, true);
+        }
+        if (bulk != null) {
+            EventColumns rows = bulk;
+            bulk = null;
+            storeBulk(rows, false);
+        }
+        if (!unresolved) {
+            return;
+        }
+        unresolved = false;
+        ArrayList<StoryboardEvent> events = new ArrayList<StoryboardEvent>(getEvents());
+        PreviousResolver.resolve(events, id, validating);
+        storeResolved(events);
+    }
+
+    //-----------------------------------------Bulk mode---------------------------------------------
 
-        //variable for looping
-        boolean breakLoop = false;
+    /**
+     * Turns on bulk mode, for scripts that add thousands of events at
+     * once. Until the next seal(), events don't go into the TreeSet
+     * and aren't checked one at a time: addToCompilation just copies
+     * each one onto the end of a primitive buffer (see EventColumns).
+     *
+     * seal() (or writing the object, or looking at its events) then
+     * sorts the whole buffer once, checks it for duplicates and
+     * overlaps in one sweep, stores it, and fills in previous values
+     * in one pass. The checks are the same as without bulk mode, but
+     * the warnings all come out at seal(), in order of start time, and
+     * an overlap is reported at the time of the later starting event
+     * (not the one that was added later). The first of several
+     * duplicates that were added is the one kept.
+     *
+     * Bulk mode ends at seal(). Call this again for another batch.
+     */
+    public void beginBulk() {
+        if (timeline != null) {
+            unshare();
+        }
+        if (bulk == null) {
+            bulk = new EventColumns();
+        }
+    }
 
-        //overlap checking AND duplicate checking among all the elements in
-        //the compilation. Duplicate Check IGNORES an event being a reference
-        //itself, since that should only happen with the two events being
-        //checked are "e" and "event," meaning that it's the current event
-        //checking with itself that just went into the compilation.
-        //tl;dr don't worry about it, it works. I think.
-        if (!this.compilation.isEmpty()) {
-            for (StoryboardEvent e : compilation) {
-                event.overlapCheck(e);
-                event.duplicateCheck(e);
+    /**
+     * Turns checking for duplicates and overlaps on or off (it's on
+     * by default). With it off, events are stored as they are, without
+     * any warnings and without keeping the interval index up, which
+     * makes adding events a lot quicker. Run a Validator over the
+     * objects afterwards to get the warnings. Duplicates aren't turned
+     * away while it's off, so they get written too.
+     *
+     * Turning it back on builds the index again from the stored events.
+     *
+     * @param validating false to skip the checks
+     */
+    public void setValidating(boolean validating) {
+        if (validating && !this.validating) {
+            eventIndex.clear();
+            for (StoryboardEvent e : getEvents()) {
+                indexFor(e.getEventType()).add(e.getStartTime(), e.getEndTime());
             }
         }
+        this.validating = validating;
+    }
 
-        //Previous check, if the user specifies for it. Applies the values
-        //of the same event type that happened previously to the current event.
-        if (!this.compilation.isEmpty() && previousCheck == true) {
-            Set<StoryboardEvent> stuff = compilation.descendingSet();
-            for (StoryboardEvent e : stuff) {
-                breakLoop = event.previousChecking(e);
-                if (breakLoop) {
-                    //probably not the best idea to use break, but I'm too lazy.
-                    break;
+    public boolean isValidating() {
+        return validating;
+    }
+
+    /**
+     * Turns on concurrent mode, so that several threads can add
+     * events to this object at the same time (the event methods and
+     * addToCompilation are then safe to call from any thread). Each
+     * event is only copied into a striped buffer (see EventStripes);
+     * the rest of the work happens at seal(), like in bulk mode, after
+     * the events from all of the threads are merged and sorted.
+     *
+     * The merge puts events that start at the same time in an order
+     * that only depends on what's in them, so the object comes out the
+     * same no matter how the threads were scheduled. If duplicates come
+     * in from different threads, the same one is kept every time.
+     *
+     * Call seal() (or write the object) once every thread is done
+     * adding; concurrent mode ends there. Nothing else (looking at the
+     * events, optimizing, ...) is safe while threads are still adding.
+     */
+    public void beginConcurrent() {
+        if (timeline != null) {
+            unshare();
+        }
+        if (stripes == null) {
+            stripes = new EventStripes();
+        }
+    }
+
+    /**
+     * @return true if events are going into the concurrent stripes
+     */
+    public boolean isConcurrent() {
+        return stripes != null;
+    }
+
+    /**
+     * @return true if events are going into the bulk buffer
+     */
+    public boolean isBulk() {
+        return bulk != null;
+    }
+
+    /**
+     * Stores a batch of bulk events: sorts the rows, sweeps through
+     * them once per event type (only the latest start and the largest
+     * end so far are needed to spot duplicates and overlaps), and hands
+     * the ones that are kept over to storeSorted and the index.
+     *
+     * @param rows      the events that were added in bulk or concurrent mode
+     * @param canonical true to break ties by content instead of by the
+     *                  order the rows were added in (see canonicalOrder)
+     */
+    private void storeBulk(EventColumns rows, boolean canonical) {
+        int[] order = canonical ? rows.canonicalOrder() : rows.order();
+        int types = EventType.values().length;
+        boolean[] seen = new boolean[types];
+        int[] lastStart = new int[types];
+        int[] lastEnd = new int[types];
+        //the largest end of the kept events that start before lastStart
+        int[] endBefore = new int[types];
+        int[] counts = new int[types];
+        Arrays.fill(endBefore, Integer.MIN_VALUE);
+
+        ArrayList<StoryboardEvent> kept = new ArrayList<StoryboardEvent>(order.length);
+        long base = nextSequence;
+        nextSequence += order.length;
+        for (int i = 0; i < order.length; i++) {
+            int row = order[i];
+            EventType type = rows.getEventType(row);
+            int t = type.ordinal();
+            int from = rows.getStartTime(row);
+            int to = rows.getEndTime(row);
+            if (seen[t] && from != lastStart[t]) {
+                endBefore[t] = Math.max(endBefore[t], lastEnd[t]);
+            }
+
+            //same rules as addToCompilation, against this batch and
+            //against whatever was stored before it
+            if (validating) {
+                EventIndex index = eventIndex.get(type);
+                boolean duplicate = (seen[t] && from == lastStart[t])
+                        || (index != null && index.containsStart(from));
+                boolean overlap = endBefore[t] > from
+                        || (index != null && index.overlaps(from, to));
+
+                if (overlap) {
+                    DiagnosticLog.warn(Diagnostic.EVENT_OVERLAP, id, from);
+                }
+                if (duplicate) {
+                    DiagnosticLog.warn(Diagnostic.DUPLICATE_EVENT, id, from);
+                    continue;
                 }
             }
+
+            StoryboardEvent e = rows.get(row);
+            e.setSequence(base + i);
+            unresolved |= e.usesPrevious();
+            kept.add(e);
+            seen[t] = true;
+            lastStart[t] = from;
+            lastEnd[t] = to;
+            counts[t]++;
+        }
+
+        if (!validating) {
+            storeSorted(kept);
+            return;
+        }
+
+        //the kept events are in order, so each type's are too
+        int[][] from = new int[types][];
+        int[][] to = new int[types][];
+        for (int t = 0; t < types; t++) {
+            from[t] = new int[counts[t]];
+            to[t] = new int[counts[t]];
+            counts[t] = 0;
+        }
+        for (StoryboardEvent e : kept) {
+            int t = e.getEventType().ordinal();
+            from[t][counts[t]] = e.getStartTime();
+            to[t][counts[t]] = e.getEndTime();
+            counts[t]++;
+        }
+        for (EventType type : EventType.values()) {
+            int t = type.ordinal();
+            if (counts[t] > 0) {
+                indexFor(type).addSorted(from[t], to[t], counts[t]);
+            }
+        }
+        storeSorted(kept);
+    }
+
+    /**
+     * Stores a batch of events that are in order and already
+     * checked. Subclasses that store events somewhere else override this.
+     *
+     * @param events the events to store, in the order of compareTo
+     */
+    protected void storeSorted(List<StoryboardEvent> events) {
+        compilation.addAll(events);
+    }
+
+    /**
+     * Called by seal() with the resolved events. The events from
+     * getEvents are the stored ones by default, so they've already
+     * been changed and there's nothing to do. Subclasses that hand out
+     * copies from getEvents (like the compact mode of Sprite) store
+     * the resolved copies here.
+     *
+     * @param events every event, resolved, in order of start time
+     */
+    protected void storeResolved(List<StoryboardEvent> events) {
+
+    }
+
+    /**
+     * Grabs the interval index for a certain event type, making
+     * one if this object hasn't seen that type yet.
+     *
+     * @param type the event type to get the index for
+     * @return the index holding all events of that type
+     */
+    protected EventIndex indexFor(EventType type) {
+        EventIndex index = eventIndex.get(type);
+        if (index == null) {
+            index = new EventIndex();
+            eventIndex.put(type, index);
+        }
+        return index;
+    }
+
+    //-----------------------------------------Shared timelines---------------------------------------------
+
+    /**
+     * Turns this object's events into a shared Timeline, and makes the
+     * object play that timeline instead of keeping its own events. If
+     * another object already shares the exact same events, both end
+     * up with the same timeline. Use the timeline with useTimeline to
+     * make more objects that do the same thing.
+     *
+     * @return the timeline this object plays now
+     */
+    public Timeline share() {
+        if (timeline != null && transform.isIdentity()) {
+            return timeline;
+        }
+        Timeline shared = Timeline.of(getEvents());
+        useTimeline(shared, EventTransform.IDENTITY);
+        return shared;
+    }
+
+    /**
+     * Makes this object play a shared timeline, moved by a transform,
+     * instead of its own events (which are thrown away). The object only
+     * keeps a reference to the timeline, and the transform gets applied
+     * as the events are written. Adding or changing events afterwards
+     * gives the object its own copy first (copy on write), so the
+     * timeline never changes.
+     *
+     * The object's own x and y (the ones on the Sprite line) aren't
+     * moved by the transform.
+     *
+     * @param shared    the timeline to play
+     * @param transform how to move the timeline's events in time and space
+     * @throws IllegalArgumentException if the transform mirrors a
+     *                                  timeline that can't be mirrored
+     *                                  (see Timeline.canMirror)
+     */
+    public void useTimeline(Timeline shared, EventTransform transform) {
+        if (transform.isMirrored() && !shared.canMirror()) {
+            throw new IllegalArgumentException("Can't mirror an object that only flips "
+                    + "horizontally some of the time.");
+        }
+        replaceEvents(Collections.<StoryboardEvent>emptyList());
+        unresolved = false;
+        timeline = shared;
+        this.transform = transform;
+        startTime = shared.size() == 0 ? -1 : transform.time(shared.getFirstTime());
+    }
+
+    /**
+     * @return the timeline this object plays, or null if it has its own events
+     */
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    public EventTransform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Makes another object that does exactly what this one does, only
+     * moved in time and space (later, to the side, mirrored, bigger,
+     * turned, ...). No commands are copied: this object's events become
+     * a shared timeline (see share) and the instance plays it with the
+     * transform, which only gets applied as the instance is written.
+     * That makes an instance about as cheap as the object itself, so
+     * stamping out 100k of them is fine.
+     *
+     * The instance's own x and y are this object's, put through the
+     * transform. Changing the instance's events afterwards gives it
+     * its own copy, and leaves this object alone.
+     *
+     * @param transform how the instance differs from this object
+     * @return the instance
+     * @throws IllegalArgumentException if the instance is mirrored and
+     *                                  this object only flips
+     *                                  horizontally some of the time
+     */
+    public Storyboard instance(EventTransform transform) {
+        Timeline shared = timeline != null ? timeline : share();
+        Storyboard copy = blank(transform);
+        copy.useTimeline(shared, this.transform.then(transform));
+        return copy;
+    }
+
+    /**
+     * @param timeShift how much later the instance does everything
+     * @param dx        how far to the right the instance is
+     * @param dy        how far down the instance is
+     * @return the instance
+     */
+    public Storyboard instance(int timeShift, int dx, int dy) {
+        return instance(EventTransform.shift(timeShift, dx, dy));
+    }
+
+    /**
+     * Makes a new object of the same kind, with the same header as
+     * this one (layer, origin, file, ...) but no events, for instance().
+     * The parts of the header that are positions or times get put
+     * through the transform.
+     *
+     * @param transform how the instance differs from this object
+     * @return the empty object
+     */
+    protected abstract Storyboard blank(EventTransform transform);
+
+    /**
+     * Gives this object its own copy of the timeline it plays, with
+     * the transform applied, so its events can be changed.
+     */
+    protected void unshare() {
+        Timeline shared = timeline;
+        EventTransform moved = transform;
+        transform = EventTransform.IDENTITY;
+        replaceEvents(shared.events(moved));
+    }
+
+    //-----------------------------------------Writing---------------------------------------------
+
+    /**
+     * Writes this object's whole block (the object line, then one
+     * line per event) straight into an Appendable. The Writer hands
+     * its file here, so the block is streamed out line by line
+     * and never exists as one big String.
+     *
+     * The lines are separated by "\n", with no line break at the end,
+     * same as toString.
+     *
+     * @param out where the block gets written
+     * @throws IOException if the Appendable fails to write
+     */
+    public void writeTo(Appendable out) throws IOException {
+        seal();
+        writeHeader(out);
+        if (timeline != null) {
+            timeline.writeTo(out, transform);
+        } else {
+            writeEvents(out);
+        }
+    }
+
+    /**
+     * Writes every event line, in order, each one after a "\n".
+     *
+     * @param out where the lines get written
+     * @throws IOException if the Appendable fails to write
+     */
+    protected void writeEvents(Appendable out) throws IOException {
+        for (StoryboardEvent e : compilation) {
+            out.append('\n');
+            e.writeTo(out);
+        }
+    }
+
+    /**
+     * Writes the first line of the block, the one that declares the
+     * object (Sprite,layer,origin,...). This is different for each
+     * type of storyboard object, so it's left abstract here.
+     *
+     * @param out where the line gets written
+     * @throws IOException if the Appendable fails to write
+     */
+    protected abstract void writeHeader(Appendable out) throws IOException;
+
+    /**
+     * Compares two storyboard objects with each other, this will
+     * ultimately and most importantly used to figure
+     * out which object will be printed first. The natural
+     * ordering of objects is by layer, then by when their first
+     * event occurs, whatever kind of object they are.
+     *
+     * @param other the object that we're comparing to
+     * @return negative if this is less than other object,
+     * zero if equal, and positive if greater.
+     */
+    public int compareTo(Storyboard other) {
+        if (this.layer.compareTo(other.getLayerENUM()) < 0) {
+            return -1;
+        } else if (this.layer.compareTo(other.getLayerENUM()) > 0) {
+            return 1;
+        } else {
+            return getStartTime() - other.getStartTime();
         }
     }
 
@@ -317,9 +903,67 @@ public abstract class Storyboard implements Comparable<Storyboard> {
     }
 
     public int getStartTime() {
+        if (stripes != null) {
+            seal();
+        }
         return startTime;
     }
 
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * @return a number for this object that warnings use to say
+     * which object they happened on. Objects are numbered in the order
+     * they're made, starting at 0.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Makes an evaluator that can tell where this object is, and
+     * what it looks like, at any time. It works from the events as
+     * they are right now, so make a new one after adding more.
+     *
+     * @return an evaluator for this object
+     */
+    public SpriteEvaluator evaluator() {
+        return new SpriteEvaluator(this);
+    }
+
+    /**
+     * All of this object's events, in order of their start time.
+     * Passes that look at or rewrite events (optimizing, culling,
+     * ...) should go through this instead of the compilation, since
+     * not every object keeps its events in the compilation.
+     *
+     * @return the events, which shouldn't be modified
+     */
+    public Collection<StoryboardEvent> getEvents() {
+        if (timeline != null) {
+            return Collections.unmodifiableList(timeline.events(transform));
+        }
+        seal();
+        return Collections.unmodifiableSortedSet(compilation);
+    }
+
+    /**
+     * @return how many events this object has
+     */
+    public int getEventCount() {
+        if (timeline != null) {
+            return timeline.size(transform);
+        }
+        seal();
+        return compilation.size();
+    }
+
     //-----------------------------------------Events---------------------------------------------
 
     /**
@@ -456,7 +1100,7 @@ public abstract class Storyboard implements Comparable<Storyboard> {
                       int endX) {
         StoryboardEvent move = new MoveXEvent(easing, startTime, endTime,
                 startX, endX);
-        addToCompilation(move, true);
+        addToCompilation(move, false);
     }
 
     /**
@@ -490,7 +1134,7 @@ public abstract class Storyboard implements Comparable<Storyboard> {
                       int endY) {
         StoryboardEvent move = new MoveYEvent(easing, startTime, endTime,
                 startY, endY);
-        addToCompilation(move, true);
+        addToCompilation(move, false);
     }
 
     /**
@@ -736,7 +1380,7 @@ public abstract class Storyboard implements Comparable<Storyboard> {
     public void color(int easing, int startTime, int endTime, int r2, int g2, int b2) {
         StoryboardEvent color = new ColorEvent(easing, startTime, endTime,
                 0, 0, 0, r2, g2, b2);
-        addToCompilation(color, false);
+        addToCompilation(color, true);
     }
 
     //-----------------------------------------Miscellaneous---------------------------------------------
@@ -799,6 +1443,50 @@ public abstract class Storyboard implements Comparable<Storyboard> {
         addToCompilation(param, false);
     }
 
+    //-----------------------------------------Loops---------------------------------------------
+
+    /**
+     * Loop commands:
+     * General format for looping is:
+     * _L,startTime,loopCount
+     * __[command]
+     * __[command]
+     * <p/>
+     * The commands under the loop get played loopCount times in a
+     * row, starting at startTime. Their times are RELATIVE to the
+     * start of the loop, so a fade from 0 to 500 in a loop starting at
+     * 10000 plays from 10000 to 10500 the first time, 10500 to 11000
+     * the second time, and so on. Great for things that pulse, blink
+     * or spin to the beat, and a lot shorter than writing out every
+     * single pass.
+     */
+
+    /**
+     * Loops a set of commands. Make the commands the same way the
+     * storyboard does (new FadeEvent(...), new MoveEvent(...), ...),
+     * with times counted from the start of the loop. Previous
+     * checking doesn't happen inside loops, so give every value.
+     *
+     * @param startTime the time that the loop begins
+     * @param loopCount how many times the commands play
+     * @param commands  the commands to repeat
+     */
+    public void loop(int startTime, int loopCount, StoryboardEvent... commands) {
+        loop(startTime, loopCount, Arrays.asList(commands));
+    }
+
+    /**
+     * Same as the other loop method, but takes the commands as a list.
+     *
+     * @param startTime the time that the loop begins
+     * @param loopCount how many times the commands play
+     * @param commands  the commands to repeat
+     */
+    public void loop(int startTime, int loopCount, List<StoryboardEvent> commands) {
+        StoryboardEvent loop = new LoopEvent(startTime, loopCount, commands);
+        addToCompilation(loop, false);
+    }
+
 }
 
 //EOF: END OF FILE
\ No newline at end of file
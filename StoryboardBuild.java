@@ -0,0 +1,201 @@
+/**
+ * StoryboardBuild.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Builds a storyboard on all cores at once. Instead of making every
+ * sprite one after another (like Driver does) and then handing them
+ * to the Writer, you register generators: pieces of code that each
+ * make some of the sprites (one effect, one section of the song, ...).
+ * build() runs them on a ForkJoinPool, so idle cores steal work from
+ * busy ones, and seals every sprite on the pool too, so the previous
+ * values and bulk batches get done in parallel as well.
+ *
+ * Every generator gets its own SplittableRandom, made from a seed
+ * that's split off the root seed when the generator is registered. So
+ * as long as generators only use the random they're given, they make
+ * the same sprites every time, no matter which thread runs them or
+ * when. The sprites are collected per generator, and put together
+ * per Layer in the order the generators were registered, so the
+ * .osb comes out exactly the same with 1 thread or 64.
+ *
+ * Generators shouldn't touch each other's sprites, and they shouldn't
+ * touch the same sprite from two generators (use beginConcurrent for
+ * that). If a generator throws, the build throws too, so a storyboard
+ * with pieces missing never gets written.
+ *
+ * Changelog:
+ * 10/18/2026: Build created.
+ * 10/18/2026: A generator that fails makes the build fail, and write() takes a pool.
+ *
+ * @version 1.00
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class StoryboardBuild {
+
+    /**
+     * Makes some of the storyboard's objects.
+     */
+    public interface Generator {
+
+        /**
+         * @param random the only source of randomness the generator
+         *               should use, so the build can be repeated
+         * @return the objects made
+         */
+        Collection<? extends Storyboard> generate(SplittableRandom random);
+    }
+
+    private final SplittableRandom root;
+    private final ArrayList<Generator> generators = new ArrayList<Generator>();
+    private final ArrayList<Long> seeds = new ArrayList<Long>();
+
+    //how long the last build took, in milliseconds
+    private long buildMillis = 0;
+
+    /**
+     * @param seed the root seed every generator's seed is split from
+     */
+    public StoryboardBuild(long seed) {
+        root = new SplittableRandom(seed);
+    }
+
+    /**
+     * Registers a generator. Its seed is split off the root right
+     * now, so it only depends on how many generators came before it.
+     *
+     * @param generator the generator to run at build()
+     */
+    public void add(Generator generator) {
+        generators.add(generator);
+        seeds.add(root.split().nextLong());
+    }
+
+    /**
+     * @return how many generators are registered
+     */
+    public int size() {
+        return generators.size();
+    }
+
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    //-----------------------------------------Building---------------------------------------------
+
+    /**
+     * Runs every generator on the common ForkJoinPool.
+     *
+     * @return the objects made, per layer
+     * @throws IllegalStateException if a generator failed (with what
+     *                               it threw as the cause)
+     */
+    public EnumMap<Layer, List<Storyboard>> build() {
+        return build(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs every generator, and seals what they made, on a pool.
+     * Generators can be run again; they get the same seeds each time.
+     *
+     * @param pool the pool to run on, or null to run everything on
+     *             the calling thread
+     * @return the objects made, per layer, in the order of the
+     * generators that made them
+     * @throws IllegalStateException if a generator failed (with what
+     *                               it threw as the cause), or the
+     *                               build was interrupted
+     */
+    public EnumMap<Layer, List<Storyboard>> build(ForkJoinPool pool) {
+        long start = System.nanoTime();
+        int count = generators.size();
+        List<List<Storyboard>> made = new ArrayList<List<Storyboard>>(count);
+        for (int i = 0; i < count; i++) {
+            made.add(null);
+        }
+
+        if (pool == null) {
+            try {
+                for (int i = 0; i < count; i++) {
+                    made.set(i, run(i));
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("A generator failed while building.", e);
+            }
+        } else {
+            try {
+                pool.submit(() -> IntStream.range(0, count).parallel()
+                        .forEach(i -> made.set(i, run(i))))
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Building was interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A generator failed while building.",
+                        e.getCause());
+            }
+        }
+
+        EnumMap<Layer, List<Storyboard>> layers =
+                new EnumMap<Layer, List<Storyboard>>(Layer.class);
+        for (Layer l : Layer.values()) {
+            layers.put(l, new ArrayList<Storyboard>());
+        }
+        for (List<Storyboard> objects : made) {
+            for (Storyboard s : objects) {
+                layers.get(s.getLayerENUM()).add(s);
+            }
+        }
+        buildMillis = (System.nanoTime() - start) / 1000000;
+        return layers;
+    }
+
+    /**
+     * Same as write(writer, pool), on the common ForkJoinPool.
+     */
+    public void write(Writer writer) {
+        write(writer, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds the storyboard on a pool and hands every object to a
+     * writer. The writer sorts them with a stable sort, so objects
+     * that start at the same time stay in generator order. Nothing
+     * is written if the build fails.
+     *
+     * @param writer the writer to write to
+     * @param pool   the pool to build on, or null for the calling thread
+     * @throws IllegalStateException if a generator failed
+     */
+    public void write(Writer writer, ForkJoinPool pool) {
+        ArrayList<Storyboard> all = new ArrayList<Storyboard>();
+        for (List<Storyboard> objects : build(pool).values()) {
+            all.addAll(objects);
+        }
+        writer.writeToFile(all);
+    }
+
+    //runs one generator with its own random, and seals what it made
+    private List<Storyboard> run(int i) {
+        Collection<? extends Storyboard> objects =
+                generators.get(i).generate(new SplittableRandom(seeds.get(i)));
+        List<Storyboard> list = new ArrayList<Storyboard>(objects);
+        for (Storyboard s : list) {
+            s.seal();
+        }
+        return list;
+    }
+}
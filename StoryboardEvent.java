@@ -127,10 +127,19 @@
  *
  * Changelog:
  * 1/27/2015: Finished draft.
+ * 10/18/2026: Event lines are now streamed through writeTo.
+ * 10/18/2026: Events that take previous values are marked, and filled in later
+ * by PreviousResolver.
+ * 10/18/2026: compareTo is now a total order, and equals/hashCode agree with it.
+ * 10/18/2026: overlapCheck/duplicateCheck report to the DiagnosticLog sink.
+ * 10/18/2026: The abstract previousChecking was removed (see PreviousResolver).
+ * 10/18/2026: Events remember that they took previous values (tookPrevious).
  *
  * @author Erina
  * @version 1.00
  */
+import java.io.IOException;
+
 public abstract class StoryboardEvent implements Comparable<StoryboardEvent> {
 
     //variables that are universal to all/most storyboard events
@@ -138,7 +147,17 @@ public abstract class StoryboardEvent implements Comparable<StoryboardEvent> {
     protected int endTime = 0;
     protected int easing = 0;
     protected EventType e = EventType.NULL;
-    protected String sbLine = "";
+
+    //true if this event's starting values still have to be taken
+    //from the events before it (see PreviousResolver)
+    protected boolean usesPrevious = false;
+
+    //true if this event's starting values were taken from the events
+    //before it, kept after PreviousResolver clears usesPrevious
+    protected boolean tookPrevious = false;
+
+    //the order this event was stored in on its object, for breaking ties
+    protected long sequence = 0;
 
     //-----------------------------------------Getter / Setters---------------------------------------------
 
@@ -161,77 +180,118 @@ public abstract class StoryboardEvent implements Comparable<StoryboardEvent> {
         return e;
     }
 
+    public boolean usesPrevious() {
+        return usesPrevious;
+    }
+
+    public void setUsesPrevious(boolean usesPrevious) {
+        this.usesPrevious = usesPrevious;
+    }
+
+    public boolean tookPrevious() {
+        return tookPrevious;
+    }
+
+    public void setTookPrevious(boolean tookPrevious) {
+        this.tookPrevious = tookPrevious;
+    }
+
     //-----------------------------------------Vitals---------------------------------------------
 
+    /**
+     * A key that sorts events the same way compareTo does: start
+     * time in the top 32 bits, then the event type. Events can be
+     * sorted or binary searched on this as a plain long.
+     *
+     * Within one storyboard object, no two events share a key,
+     * since a second event of the same type starting at the same
+     * time is turned away as a duplicate.
+     *
+     * @return the sort key of this event
+     */
+    public long sortKey() {
+        return ((long) startTime << 32) | e.ordinal();
+    }
+
+    /**
+     * The order this event was stored in, within its storyboard
+     * object. Only used to break ties in compareTo.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     /**
      * Overrides compareTo from java.lang.Comparable, which
      * allows for the sorting of events by startTime.
-     * Note that if startTime is the same as the other
-     * object's startTime, it checks to see if the event
-     * type is also the same. If they aren't the same, it
-     * returns -1. This is because if compareTo returns
-     * 0, it means two objects are equal. If this happens
-     * in a TreeSet, they will overwrite each other since
-     * TreeSet uses compareTo for equals checking, and
-     * not the equals method!
+     *
+     * Events are ordered by start time, then event type, then end
+     * time, then the order they were stored in. That is a total
+     * order, so a TreeSet never mixes events up or throws one away
+     * just because it starts at the same time as another, and the
+     * events of an object always come out in the same order no matter
+     * what order they were added in.
      *
      * @param other storyboard event that you want to compare to
      * @return negative if this event comes earlier, positive if
      * this event comes later, and zero if equal.
      */
     public int compareTo(StoryboardEvent other) {
-        if (startTime == other.getStartTime()) {
-            if (this.e != other.getEventType()) {
-                return -1;
-            }
+        int c = Long.compare(sortKey(), other.sortKey());
+        if (c != 0) {
+            return c;
+        }
+        c = Integer.compare(endTime, other.getEndTime());
+        if (c != 0) {
+            return c;
         }
-        return this.startTime - other.getStartTime();
+        return Long.compare(sequence, other.getSequence());
     }
 
     /**
      * Overwrites equals method in java.lang.Object.
-     * Checks whether or not two objects are equal.
+     * Checks whether or not two objects are equal, in the
+     * same way as compareTo: same kind of event, same start
+     * and end time and the same sequence number.
      *
-     * If they are equal, but not a reference of each
-     * other, a DuplicateEventException is thrown, which
-     * will cause a warning message to be printed in the
-     * terminal window.
+     * This used to also be how duplicates got found, but that's
+     * done by the storyboard object's EventIndex now (see
+     * duplicateCheck).
      *
      * @param other storyboard event to be compared with
      * @return true if equal, false if not.
      */
     public boolean equals(Object other) {
-        try {
-            if (null == other) {
-                return false;
-            }
-            if (this == other) {
-                return true;
-            }
-            if (!(other instanceof StoryboardEvent)) {
-                return false;
-            }
-            StoryboardEvent that = (StoryboardEvent) other;
-            if (this.e.equals(that.getEventType()) &&
-                    startTime == that.getStartTime()) {
-                throw new DuplicateEventException(startTime);
-            }
-        } catch (DuplicateEventException e) {
-            System.out.println(e.getMessage());
+        if (null == other) {
+            return false;
+        }
+        if (this == other) {
             return true;
         }
-        return false;
+        if (other.getClass() != getClass()) {
+            return false;
+        }
+        return compareTo((StoryboardEvent) other) == 0;
     }
 
     /**
      * Overwrites hashcode, vital java thing to do.
+     * Uses the same fields as equals.
      *
      * @return int the object's new hashcode
      */
     public int hashCode() {
         int result = 17;
-        result += 6 * startTime;
-        result += 6 * e.ordinal();
+        result = 31 * result + startTime;
+        result = 31 * result + e.ordinal();
+        result = 31 * result + endTime;
+        result = 31 * result + Long.hashCode(sequence);
         return result;
     }
 
@@ -239,65 +299,82 @@ public abstract class StoryboardEvent implements Comparable<StoryboardEvent> {
      * Does a check to see if this event and
      * another event's start time and end time
      * overlap with each other. The two events
-     * must be of the same type. If so,
-     * EventOverlapException is thrown, which
-     * prints a warning message in the terminal
-     * window.
+     * must be of the same type. If so, an
+     * EVENT_OVERLAP warning goes to the
+     * DiagnosticLog sink.
      *
      * @param o storyboard event to be compared with
      */
     public void overlapCheck(StoryboardEvent o) {
-        try {
-            if (o.getEventType() == this.e) { //check if events are of the same type
-                if (o.getEndTime() > startTime &&
-                        o.getStartTime() < startTime) {
-                    throw new EventOverlapException(startTime);
-                } else if (startTime < o.getStartTime() &&
-                        endTime > o.getStartTime()) {
-                    throw new EventOverlapException(startTime);
-                }
+        if (o.getEventType() == this.e) { //check if events are of the same type
+            if ((o.getEndTime() > startTime && o.getStartTime() < startTime)
+                    || (startTime < o.getStartTime() && endTime > o.getStartTime())) {
+                DiagnosticLog.warn(Diagnostic.EVENT_OVERLAP, -1, startTime);
             }
-        } catch (EventOverlapException e) {
-            System.out.println(e.getMessage());
         }
     }
 
     /**
      * Does a check to see if this event is
-     * equal to another event, meaning do
+     * a duplicate of another event, meaning do
      * two or more of the same event start
-     * at the same time? If so, throw
-     * the exception that is thrown from
-     * equals method.
+     * at the same time? If so, a
+     * DUPLICATE_EVENT warning goes to the
+     * DiagnosticLog sink.
      *
      * @param o storyboard event to be compared with
+     * @return true if the two are duplicates
      */
     public boolean duplicateCheck(StoryboardEvent o) {
-        return this.equals(o);
+        if (this != o && this.e == o.getEventType() && startTime == o.getStartTime()) {
+            DiagnosticLog.warn(Diagnostic.DUPLICATE_EVENT, -1, startTime);
+            return true;
+        }
+        return false;
     }
 
     /**
-     * prints off the event line, differs for each
+     * Writes the event line straight into an Appendable (a file
+     * writer, a StringBuilder, ...). The line differs for each
      * event type, so this is overriden in each of the
      * subclasses and left abstract here.
      *
+     * Nothing gets concatenated or boxed along the way, which
+     * matters a lot once a sprite has tens of thousands of events.
+     *
+     * @param out where the event line gets written
+     * @throws IOException if the Appendable fails to write
+     */
+    public abstract void writeTo(Appendable out) throws IOException;
+
+    /**
+     * prints off the event line, by running writeTo into
+     * a StringBuilder.
+     *
      * @return String the event line to be printed
      */
-    public abstract String toString();
+    public String toString() {
+        StringBuilder line = new StringBuilder(48);
+        try {
+            writeTo(line);
+        } catch (IOException e) {
+            //StringBuilder never actually throws this
+        }
+        return line.toString();
+    }
 
     /**
-     * Checks and obtains the previous values for the starting
-     * values of this current event. The variables that it looks
-     * for is different depending on event type, so this
-     * is declared abstract and will be overriden in all
-     * subclasses.
+     * Writes the part every event line starts with:
+     * " type,easing,startTime,endTime"
      *
-     * @param o storyboard event to be compared with, and to
-     *          attempt to extract previous values out of
-     * @return true if values were obtained, false if this event
-     * cannot take the previous values from the other (maybe
-     * due to the fact that the other event doesn't come previous
-     * to current, or if the event type aren't the same).
+     * @param out  where the event line gets written
+     * @param type the short name of the event (F, M, MX, ...)
+     * @throws IOException if the Appendable fails to write
      */
-    public abstract boolean previousChecking(StoryboardEvent o);
+    protected void writeCommon(Appendable out, String type) throws IOException {
+        out.append(' ').append(type);
+        OsbFormat.field(out, easing);
+        OsbFormat.field(out, startTime);
+        OsbFormat.field(out, endTime);
+    }
 }
@@ -0,0 +1,275 @@
+/**
+ * TextureAnalyzer.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Works out how much texture memory a storyboard needs over time.
+ * An image takes up memory (width * height * 4 bytes, see
+ * ImageHeaders) while at least one object that uses it exists, from
+ * the object's first command to the end of its last one. Objects that
+ * use the same image share it, so it only counts once.
+ *
+ * analyze sweeps through every object's start and end in time order,
+ * keeping a count of how many living objects use each image, so the
+ * total only changes when an image's count goes from 0 to 1 or back.
+ * The report has the total after every change, the peak, and every
+ * stretch of time where the total was over the budget (the point
+ * where slower computers start to stutter).
+ *
+ * An Animation uses all of its frames' images the whole time it exists.
+ *
+ * Changelog:
+ * 10/18/2026: Analyzer created.
+ * 10/18/2026: Animations count every one of their frames.
+ *
+ * @version 1.00
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TextureAnalyzer {
+
+    /**
+     * What analyze found.
+     */
+    public static final class Report {
+
+        private final int[] times;
+        private final long[] bytes;
+        private final long budget;
+        private final long peakBytes;
+        private final int peakTime;
+        private final List<int[]> overBudget;
+        private final List<String> missing;
+
+        private Report(int[] times, long[] bytes, long budget, List<int[]> overBudget,
+                       List<String> missing) {
+            this.times = times;
+            this.bytes = bytes;
+            this.budget = budget;
+            this.overBudget = overBudget;
+            this.missing = missing;
+            long peak = 0;
+            int at = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] > peak) {
+                    peak = bytes[i];
+                    at = times[i];
+                }
+            }
+            peakBytes = peak;
+            peakTime = at;
+        }
+
+        /**
+         * @return the times the total changed, in order
+         */
+        public int[] getTimes() {
+            return times.clone();
+        }
+
+        /**
+         * @return the total from each of getTimes() on
+         */
+        public long[] getBytes() {
+            return bytes.clone();
+        }
+
+        /**
+         * @param time a time in milliseconds
+         * @return the texture memory in use at that time
+         */
+        public long getBytesAt(int time) {
+            int i = Arrays.binarySearch(times, time);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return i < 0 ? 0 : bytes[i];
+        }
+
+        public long getPeakBytes() {
+            return peakBytes;
+        }
+
+        /**
+         * @return the first time the peak was reached
+         */
+        public int getPeakTime() {
+            return peakTime;
+        }
+
+        public long getBudget() {
+            return budget;
+        }
+
+        /**
+         * @return every stretch of time the total was over the budget,
+         * as {from, to}
+         */
+        public List<int[]> getOverBudget() {
+            return Collections.unmodifiableList(overBudget);
+        }
+
+        /**
+         * @return the images that couldn't be read (counted as 0 bytes)
+         */
+        public List<String> getMissing() {
+            return Collections.unmodifiableList(missing);
+        }
+
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            s.append("Textures: peak of ").append(megabytes(peakBytes)).append(" at ")
+                    .append(peakTime).append(" ms (budget ").append(megabytes(budget))
+                    .append(")");
+            for (int[] span : overBudget) {
+                s.append("\nOver budget from ").append(span[0]).append(" to ")
+                        .append(span[1]).append(" ms");
+            }
+            for (String path : missing) {
+                s.append("\nCouldn't read ").append(path);
+            }
+            return s.toString();
+        }
+
+        private static String megabytes(long bytes) {
+            return String.format("%.1f MB", bytes / 1048576.0);
+        }
+    }
+
+    private final ImageHeaders headers;
+
+    //how many bytes of textures are fine to have loaded at once
+    private long budget = 256L << 20;
+
+    /**
+     * @param headers where the image sizes come from
+     */
+    public TextureAnalyzer(ImageHeaders headers) {
+        this.headers = headers;
+    }
+
+    public void setBudget(long budget) {
+        this.budget = budget;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    //-----------------------------------------Analyzing---------------------------------------------
+
+    /**
+     * Works out the texture memory in use over the whole storyboard.
+     *
+     * @param objects the storyboard objects
+     * @return the report
+     */
+    public Report analyze(Collection<? extends Storyboard> objects) {
+        //every image gets a number, and its size is read; an object
+        //gets one entry for each image it uses
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<String> paths = new ArrayList<String>();
+        int[] image = new int[objects.size()];
+        int[] from = new int[objects.size()];
+        int[] to = new int[objects.size()];
+        int count = 0;
+        for (Storyboard s : objects) {
+            Collection<StoryboardEvent> events = s.getEvents();
+            if (events.isEmpty()) {
+                continue;
+            }
+            int first = Integer.MAX_VALUE;
+            int last = Integer.MIN_VALUE;
+            for (StoryboardEvent e : events) {
+                first = Math.min(first, e.getStartTime());
+                last = Math.max(last, e.getEndTime());
+            }
+            int frames = s instanceof Animation ? ((Animation) s).getFrameCount() : 1;
+            for (int f = 0; f < frames; f++) {
+                String path = s instanceof Animation
+                        ? ((Animation) s).getFramePath(f) : s.getFilePath();
+                Integer id = ids.get(path);
+                if (id == null) {
+                    id = paths.size();
+                    ids.put(path, id);
+                    paths.add(path);
+                }
+                if (count == image.length) {
+                    image = Arrays.copyOf(image, count * 2);
+                    from = Arrays.copyOf(from, count * 2);
+                    to = Arrays.copyOf(to, count * 2);
+                }
+                image[count] = id;
+                from[count] = first;
+                to[count] = last;
+                count++;
+            }
+        }
+        Map<String, ImageHeaders.Size> sizes = headers.read(paths);
+        long[] size = new long[paths.size()];
+        List<String> missing = new ArrayList<String>();
+        for (int i = 0; i < size.length; i++) {
+            ImageHeaders.Size read = sizes.get(paths.get(i));
+            if (read == null) {
+                missing.add(paths.get(i));
+            } else {
+                size[i] = read.getBytes();
+            }
+        }
+
+        //time in the top half, then ends after starts, then the object
+        long[] changes = new long[2 * count];
+        for (int i = 0; i < count; i++) {
+            changes[2 * i] = ((long) from[i] << 32) | i;
+            changes[2 * i + 1] = ((long) to[i] << 32) | (1L << 31) | i;
+        }
+        Arrays.sort(changes);
+
+        int[] users = new int[paths.size()];
+        int[] times = new int[changes.length];
+        long[] totals = new long[changes.length];
+        int points = 0;
+        List<int[]> over = new ArrayList<int[]>();
+        long total = 0;
+        int overSince = 0;
+        boolean isOver = false;
+        for (int k = 0; k < changes.length; k++) {
+            int time = (int) (changes[k] >> 32);
+            int object = (int) (changes[k] & 0x7fffffff);
+            int id = image[object];
+            if ((changes[k] & (1L << 31)) == 0) {
+                if (users[id]++ == 0) {
+                    total += size[id];
+                }
+            } else if (--users[id] == 0) {
+                total -= size[id];
+            }
+            if (k + 1 < changes.length && (int) (changes[k + 1] >> 32) == time) {
+                continue;
+            }
+            //everything at this time is done
+            times[points] = time;
+            totals[points] = total;
+            points++;
+            if (total > budget && !isOver) {
+                isOver = true;
+                overSince = time;
+            } else if (total <= budget && isOver) {
+                isOver = false;
+                over.add(new int[]{overSince, time});
+            }
+        }
+        return new Report(Arrays.copyOf(times, points), Arrays.copyOf(totals, points),
+                budget, over, missing);
+    }
+}
@@ -0,0 +1,332 @@
+/**
+ * Timeline.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * A list of events that can't be changed, so that any number of
+ * storyboard objects can play it at once. Particle effects tend to
+ * make thousands of sprites that all do the exact same thing, only
+ * at a different time or place. With a timeline, the commands are
+ * stored once, and every sprite only keeps a reference to the timeline
+ * and an EventTransform (see Storyboard.useTimeline and share).
+ *
+ * Timelines are interned: Timeline.of gives back the timeline that
+ * already exists if one with the exact same event lines was made
+ * before, so even sprites that built their commands separately end
+ * up sharing one copy. Timelines nobody uses anymore get garbage
+ * collected, and drop out of the table.
+ *
+ * The events are kept in an EventColumns, in start-time order.
+ *
+ * A transform can change things the events don't mention: a sprite
+ * without any scales can still be played twice as big, or mirrored
+ * when it never flips. Those get one extra command over the whole
+ * timeline when the events are written (see extras). Commands
+ * inside loops count too. A mirrored object that flips horizontally
+ * for its whole lifetime loses those flips instead. One that only
+ * flips some of the time (or inside a loop) can't be mirrored this
+ * way, see canMirror.
+ *
+ * Changelog:
+ * 10/18/2026: Timeline created for sharing commands between objects.
+ * 10/18/2026: Transforms that scale, rotate or mirror add the commands the events don't have.
+ * 10/18/2026: Loop commands count as commands the events have. Mirroring a timeline
+ * that only flips part of the time is turned away.
+ *
+ * @version 1.00
+ */
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public final class Timeline {
+
+    //every timeline that's in use, by content
+    private static final Map<Timeline, WeakReference<Timeline>> interned =
+            Collections.synchronizedMap(new WeakHashMap<Timeline, WeakReference<Timeline>>());
+
+    private final EventColumns columns = new EventColumns();
+    private final int[] order;
+    private final int hash;
+    private final int firstTime;
+    private final int lastTime;
+
+    //which event types show up, by ordinal, inside loops too
+    private final boolean[] has = new boolean[EventType.values().length];
+    //whether the object is flipped horizontally the whole time
+    private final boolean alwaysFlipped;
+
+    private Timeline(Collection<StoryboardEvent> events) {
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (StoryboardEvent e : events) {
+            columns.add(e);
+            has[e.getEventType().ordinal()] = true;
+            if (e instanceof LoopEvent) {
+                for (StoryboardEvent c : ((LoopEvent) e).getCommands()) {
+                    has[c.getEventType().ordinal()] = true;
+                }
+            }
+            first = Math.min(first, e.getStartTime());
+            last = Math.max(last, e.getEndTime());
+        }
+        firstTime = events.isEmpty() ? 0 : first;
+        lastTime = events.isEmpty() ? 0 : last;
+        order = columns.order();
+
+        //a flip with no length lasts forever, like in osu!
+        boolean always = false;
+        for (StoryboardEvent e : events) {
+            if (e.getEventType() == EventType.PH && (e.getStartTime() == e.getEndTime()
+                    || e.getStartTime() <= firstTime && e.getEndTime() >= lastTime)) {
+                always = true;
+            }
+        }
+        alwaysFlipped = always;
+
+        //timelines are told apart by their event lines
+        int h = 1;
+        for (int i = 0; i < order.length; i++) {
+            h = 31 * h + line(i).hashCode();
+        }
+        hash = h;
+    }
+
+    /**
+     * Gets the timeline for a list of events, making it if there isn't
+     * one with the same events already. The events should have their
+     * previous values filled in already (the events of a sealed object
+     * do); they're copied, so changing them afterwards does nothing.
+     *
+     * @param events the events, in any order
+     * @return the shared timeline
+     */
+    public static Timeline of(Collection<StoryboardEvent> events) {
+        Timeline made = new Timeline(events);
+        synchronized (interned) {
+            WeakReference<Timeline> ref = interned.get(made);
+            Timeline existing = ref == null ? null : ref.get();
+            if (existing != null) {
+                return existing;
+            }
+            interned.put(made, new WeakReference<Timeline>(made));
+            return made;
+        }
+    }
+
+    /**
+     * @return how many different timelines are in use right now
+     */
+    public static int internedCount() {
+        return interned.size();
+    }
+
+    //-----------------------------------------Reading---------------------------------------------
+
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * @return the start time of the first event, before any transform
+     */
+    public int getFirstTime() {
+        return firstTime;
+    }
+
+    /**
+     * @return the end time of the last event, before any transform
+     */
+    public int getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * A timeline can be played mirrored if it never flips horizontally
+     * (it gets one flip over its whole lifetime), or if it's flipped
+     * for its whole lifetime (the flips get dropped). Flips for only
+     * part of the time, or inside a loop, would have to be turned
+     * inside out, which one list of commands can't do.
+     *
+     * @return whether the timeline can be played with a mirrored transform
+     */
+    public boolean canMirror() {
+        if (!has[EventType.PH.ordinal()]) {
+            return true;
+        }
+        if (!alwaysFlipped) {
+            return false;
+        }
+        for (int row : order) {
+            StoryboardEvent e = columns.get(row);
+            if (e instanceof LoopEvent) {
+                for (StoryboardEvent c : ((LoopEvent) e).getCommands()) {
+                    if (c.getEventType() == EventType.PH) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param transform the transform the timeline is played with
+     * @return how many events get written with that transform
+     */
+    public int size(EventTransform transform) {
+        if (transform.isIdentity()) {
+            return order.length;
+        }
+        int count = order.length + extras(transform).size();
+        if (dropsFlips(transform)) {
+            for (int row : order) {
+                if (columns.get(row).getEventType() == EventType.PH) {
+                    count--;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Makes fresh, transformed copies of every event.
+     *
+     * @param transform what to do to the events
+     * @return the copies, in start-time order
+     */
+    public List<StoryboardEvent> events(EventTransform transform) {
+        List<StoryboardEvent> list = new ArrayList<StoryboardEvent>(order.length);
+        if (transform.isIdentity()) {
+            for (int row : order) {
+                list.add(columns.get(row));
+            }
+            return list;
+        }
+        boolean dropFlips = dropsFlips(transform);
+        for (int row : order) {
+            StoryboardEvent e = columns.get(row);
+            if (!(dropFlips && e.getEventType() == EventType.PH)) {
+                list.add(transform.apply(e));
+            }
+        }
+        List<StoryboardEvent> extra = extras(transform);
+        if (!extra.isEmpty()) {
+            list.addAll(extra);
+            Collections.sort(list);
+        }
+        return list;
+    }
+
+    /**
+     * Writes every event line, each one after a "\n", with the
+     * transform applied on the way out.
+     *
+     * @param out       where the lines get written
+     * @param transform what to do to the events
+     * @throws IOException if the Appendable fails to write
+     */
+    public void writeTo(Appendable out, EventTransform transform) throws IOException {
+        if (dropsFlips(transform) || !extras(transform).isEmpty()) {
+            //the list is rearranged, so it can't be streamed row by row
+            for (StoryboardEvent e : events(transform)) {
+                out.append('\n');
+                e.writeTo(out);
+            }
+            return;
+        }
+        for (int row : order) {
+            out.append('\n');
+            if (transform.isIdentity()) {
+                columns.writeRow(out, row);
+            } else {
+                transform.apply(columns.get(row)).writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Makes the commands a transform needs that the events don't
+     * have, each one over the whole (transformed) timeline.
+     *
+     * @param transform the transform the timeline is played with
+     * @return a scale if nothing scales the object, a rotation if
+     * nothing rotates it, and a horizontal flip if it gets mirrored
+     * and never flips
+     */
+    private List<StoryboardEvent> extras(EventTransform transform) {
+        List<StoryboardEvent> extra = new ArrayList<StoryboardEvent>(3);
+        if (order.length == 0) {
+            return extra;
+        }
+        int from = transform.time(firstTime);
+        int to = transform.time(lastTime);
+        double scale = transform.getScale();
+        if (scale != 1 && !has[EventType.S.ordinal()] && !has[EventType.V.ordinal()]) {
+            extra.add(new ScaleEvent(0, from, to, scale, scale));
+        }
+        double rotation = transform.getRotation();
+        if (rotation != 0 && !has[EventType.R.ordinal()]) {
+            extra.add(new RotationEvent(0, from, to, rotation, rotation));
+        }
+        if (transform.isMirrored() && !has[EventType.PH.ordinal()]) {
+            extra.add(new ParameterEvent(0, from, to, "H"));
+        }
+        return extra;
+    }
+
+    //a mirrored object that flips itself gets unflipped instead
+    private boolean dropsFlips(EventTransform transform) {
+        if (!transform.isMirrored() || !has[EventType.PH.ordinal()]) {
+            return false;
+        }
+        if (!canMirror()) {
+            throw new IllegalArgumentException("This timeline only flips some of the time, "
+                    + "so it can't be mirrored.");
+        }
+        return true;
+    }
+
+    //-----------------------------------------Interning---------------------------------------------
+
+    //the event line of the i-th event, written out again every time
+    //(they're only needed when two timelines have the same hash)
+    private String line(int i) {
+        StringBuilder s = new StringBuilder();
+        try {
+            columns.writeRow(s, order[i]);
+        } catch (IOException e) {
+            //a StringBuilder never fails to write
+        }
+        return s.toString();
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof Timeline)) {
+            return false;
+        }
+        Timeline t = (Timeline) o;
+        if (t.hash != hash || t.order.length != order.length) {
+            return false;
+        }
+        for (int i = 0; i < order.length; i++) {
+            if (!line(i).equals(t.line(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Validator.java
+ * A part of the JOSG project.
+ * For more information about this project, visit one of the
+ * main classes (Storyboard.java/StoryboardEvent.java,...)
+ *
+ * JOSBGL stands for Java osu! Storyboard Generation Language.
+ *
+ * Checks finished storyboard objects for the same problems that get
+ * checked when events are added (duplicates, overlaps, and scales that
+ * lose the proportions of a vector scale), but all at once, after the
+ * storyboard has been made. Objects made with setValidating(false)
+ * skip those checks while events are added, so running a Validator
+ * over them afterwards gives the same warnings for a lot less work
+ * (the only difference is that duplicates aren't turned away with the
+ * checks off, so they can also overlap with the events after them).
+ *
+ * Each object is checked with one sweep through its events in
+ * order of start time. For each event type, only the latest start
+ * and the latest end seen so far need to be kept:
+ *
+ * - an event that starts when the last one of its type started is
+ * a duplicate,
+ * - an event that starts before an earlier one of its type has ended
+ * overlaps it,
+ * - a scale that takes its values from a vector scale with different
+ * x and y values loses those proportions (only when it took previous
+ * values, same as the warning PreviousResolver gives).
+ *
+ * Objects don't depend on each other, so they get checked on a
+ * ForkJoinPool, all cores at once. The warnings are collected per
+ * object and then sent to the DiagnosticLog sink in the order the
+ * objects were given, so the result is the same every run.
+ *
+ * Changelog:
+ * 10/18/2026: Validator created.
+ * 10/18/2026: The proportion check only looks at scales that took previous values.
+ *
+ * @version 1.00
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class Validator {
+
+    private static final Diagnostic[] CODES = Diagnostic.values();
+    private static final int TYPES = EventType.values().length;
+
+    //null means check on the calling thread only
+    private ForkJoinPool pool;
+
+    private long checkedObjects = 0;
+    private long checkedCommands = 0;
+    private long warnings = 0;
+
+    /**
+     * Makes a validator that checks objects on the common ForkJoinPool.
+     */
+    public Validator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool the pool to check objects on, or null to check
+     *             them one at a time on the calling thread
+     */
+    public Validator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public long getCheckedObjects() {
+        return checkedObjects;
+    }
+
+    public long getCheckedCommands() {
+        return checkedCommands;
+    }
+
+    /**
+     * @return how many warnings this validator has reported so far
+     */
+    public long getWarnings() {
+        return warnings;
+    }
+
+    //-----------------------------------------Validating---------------------------------------------
+
+    /**
+     * Checks every object in the list, and reports what it finds
+     * to the DiagnosticLog sink.
+     *
+     * @param objects the storyboard objects to check
+     * @return how many warnings were found
+     */
+    public int validate(Collection<? extends Storyboard> objects) {
+        List<Storyboard> list = new ArrayList<Storyboard>(objects);
+        int[][] found = new int[list.size()][];
+        if (pool == null || list.size() < 2) {
+            for (int i = 0; i < list.size(); i++) {
+                found[i] = check(list.get(i));
+            }
+        } else {
+            try {
+                pool.submit(() -> IntStream.range(0, list.size()).parallel()
+                        .forEach(i -> found[i] = check(list.get(i))))
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.out.println("Validating was interrupted!");
+                return 0;
+            } catch (ExecutionException e) {
+                System.out.println("Error while validating: " + e.getCause());
+                return 0;
+            }
+        }
+
+        int total = 0;
+        for (int i = 0; i < list.size(); i++) {
+            total += report(list.get(i), found[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Checks one object, and reports what it finds to the
+     * DiagnosticLog sink.
+     *
+     * @param object the storyboard object to check
+     * @return how many warnings were found
+     */
+    public int validate(Storyboard object) {
+        return report(object, check(object));
+    }
+
+    //sends an object's findings to the sink and counts them
+    private int report(Storyboard object, int[] found) {
+        int count = found[0];
+        for (int k = 0; k < count; k++) {
+            DiagnosticLog.warn(CODES[found[1 + 2 * k]], object.getId(), found[2 + 2 * k]);
+        }
+        checkedObjects++;
+        checkedCommands += object.getEventCount();
+        warnings += count;
+        return count;
+    }
+
+    /**
+     * Sweeps through one object's events. This runs on the pool, so
+     * it only reads the object and gives its findings back instead of
+     * reporting them.
+     *
+     * @param object the object to check
+     * @return the number of findings, followed by a (code, time) pair
+     * for each one
+     */
+    static int[] check(Storyboard object) {
+        Collection<StoryboardEvent> events = object.getEvents();
+        int[] found = new int[1 + 8];
+
+        boolean[] seen = new boolean[TYPES];
+        int[] lastStart = new int[TYPES];
+        int[] lastEnd = new int[TYPES];
+        //the largest end of the events that start before lastStart
+        int[] endBefore = new int[TYPES];
+        Arrays.fill(endBefore, Integer.MIN_VALUE);
+
+        //every scale and vector scale, in order, for the proportion check
+        ArrayList<StoryboardEvent> scales = new ArrayList<StoryboardEvent>();
+
+        for (StoryboardEvent e : events) {
+            int t = e.getEventType().ordinal();
+            int from = e.getStartTime();
+            if (seen[t] && from != lastStart[t]) {
+                endBefore[t] = Math.max(endBefore[t], lastEnd[t]);
+            }
+            if (endBefore[t] > from) {
+                found = add(found, Diagnostic.EVENT_OVERLAP, from);
+            }
+            if (seen[t] && from == lastStart[t]) {
+                //the duplicate still gets written, so it can still run into later events
+                found = add(found, Diagnostic.DUPLICATE_EVENT, from);
+                lastEnd[t] = Math.max(lastEnd[t], e.getEndTime());
+            } else {
+                seen[t] = true;
+                lastStart[t] = from;
+                lastEnd[t] = e.getEndTime();
+            }
+
+            if (e instanceof ScaleEvent || e instanceof VectorEvent) {
+                if (e instanceof ScaleEvent && e.tookPrevious()) {
+                    //the scale it took its values from is the latest starting
+                    //one that has already ended
+                    for (int j = scales.size() - 1; j >= 0; j--) {
+                        StoryboardEvent before = scales.get(j);
+                        if (before.getEndTime() <= from) {
+                            if (before instanceof VectorEvent
+                                    && ((VectorEvent) before).getEndX()
+                                    != ((VectorEvent) before).getEndY()) {
+                                found = add(found, Diagnostic.PROPORTION_DISAGREEMENT, from);
+                            }
+                            break;
+                        }
+                    }
+                }
+                scales.add(e);
+            }
+        }
+        return found;
+    }
+
+    private static int[] add(int[] found, Diagnostic code, int time) {
+        int at = 1 + 2 * found[0];
+        if (at + 2 > found.length) {
+            found = Arrays.copyOf(found, found.length * 2);
+        }
+        found[at] = code.ordinal();
+        found[at + 1] = time;
+        found[0]++;
+        return found;
+    }
+}
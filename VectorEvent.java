@@ -31,10 +31,13 @@
  *
  * Changelog:
  * 1/27/2015: Finished draft.
+ * 10/18/2026: previousChecking removed, PreviousResolver fills in the previous values.
  *
  * @author Erina
  * @version 1.00
  */
+import java.io.IOException;
+
 public class VectorEvent extends StoryboardEvent {
 
     protected double startX = 0;
@@ -73,41 +76,12 @@ public class VectorEvent extends StoryboardEvent {
         return endY;
     }
 
-    /**
-     * Previous checking for vector event, it also
-     * takes previous values from scale event as well
-     * as vector events (since both do scaling).
-     *
-     * @param o storyboard event to be compared with, and to
-     *          attempt to extract previous values out of
-     * @return true if values were obtained, false if this event
-     * cannot take the previous values from the other (maybe
-     * due to the fact that the other event doesn't come previous
-     * to current, or if the event type aren't the same).
-     */
-    public boolean previousChecking(StoryboardEvent o) {
-        if (o instanceof VectorEvent) {
-            VectorEvent v = (VectorEvent) o;
-            if (v.getEndTime() <= this.startTime) {
-                this.startX = v.getEndX();
-                this.startY = v.getEndY();
-                return true;
-            }
-        } else if (o instanceof ScaleEvent) {
-            ScaleEvent s = (ScaleEvent) o;
-            if (s.getEndTime() <= this.startTime) {
-                this.startX = s.getEndScaling();
-                this.startY = s.getEndScaling();
-                return true;
-            }
-        }
-        return false;
-    }
-
-    public String toString() {
-        return " V," + easing + "," + startTime + "," + endTime +
-                "," + startX + "," + startY + "," + endX + "," +
-                endY;
+    public void writeTo(Appendable out) throws IOException {
+        writeCommon(out, "V");
+        OsbFormat.field(out, startX);
+        OsbFormat.field(out, startY);
+        OsbFormat.field(out, endX);
+        OsbFormat.field(out, endY);
     }
 
 }
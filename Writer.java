@@ -19,6 +19,20 @@
  *
  * Changelog:
  * 1/24/2015: Writer class created.
+ * 10/18/2026: Sprites are streamed into a buffered AsciiWriter instead of
+ * going through toString and a PrintWriter.
+ * 10/18/2026: Added a parallel mode that renders sprites on a ForkJoinPool.
+ * 10/18/2026: Added the FileChannel backend. closing() now closes the file.
+ * 10/18/2026: Added an optional CommandOptimizer pass before writing.
+ * 10/18/2026: Added an optional SpriteCuller pass before writing.
+ * 10/18/2026: Added an optional LoopDetector pass before writing.
+ * 10/18/2026: Added an optional Validator pass before writing.
+ * 10/18/2026: Added an optional BuildCache, so unchanged objects aren't rendered again.
+ * 10/18/2026: Added an optional AnimationDetector pass before writing.
+ * 10/18/2026: closing() doesn't print the throughput, see getBytesPerSecond.
+ * 10/18/2026: The optimizer's savings go in getReport instead of being printed.
+ * 10/18/2026: So do the summaries of the validator, culler, detectors and build cache.
+ * 10/18/2026: A sprite that fails to render in parallel mode stops the write.
  *
  * @author Erina
  * @version 1.00
@@ -47,8 +61,8 @@
  * the code will store your previous scaling, rotation angle, location,
  * opacity, and more. Useful, right?
  * <p/>
- * Currently only supportive of sprites in storyboards. Animation and
- * sfx support to be added, although I don't think maybe people
+ * Supports sprites and animations in storyboards. Sfx support to
+ * be added, although I don't think maybe people
  * utilize sound effects in their storyboards...I think that would just
  * be weird, although I guess games like Project Diva
  * and the original Ouendan do that.
@@ -60,30 +74,84 @@
  */
 
 
-import java.io.PrintWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * NOTE: Writer re-sorts and re-prints everything it has been given on
+ * every call to writeToFile, so it's meant for one batch. If you make
+ * your storyboard in several batches, use IncrementalWriter instead.
+ */
 
 public class Writer {
 
-    private PrintWriter writer;
+    //the header printed before each layer, indexed by Layer.ordinal()
+    private static final String[] LAYER_HEADERS = {
+            "//Storyboard Layer 0 (Background)",
+            "//Storyboard Layer 1 (Fail)",
+            "//Storyboard Layer 2 (Pass)",
+            "//Storyboard Layer 3 (Foreground)"
+    };
+
+    //how many sprites get rendered at once in parallel mode
+    private static final int PARALLEL_WINDOW = 4096;
+
+    private AsciiOutput writer;
     private ArrayList<Storyboard> backingArray;
+    private boolean parallel = false;
+    private ForkJoinPool pool;
+    private CommandOptimizer optimizer;
+    private SpriteCuller culler;
+    private LoopDetector loopDetector;
+    private Validator validator;
+    private AnimationDetector animationDetector;
+    private BuildCache cache;
+
+    //what the passes did, one line each time one runs
+    private final ArrayList<String> report = new ArrayList<String>();
 
     public Writer() {
         this("storyboard.osb");
     }
 
     public Writer(String fileName) {
+        this(fileName, false);
+    }
+
+    /**
+     * Makes a writer for the given file. If useChannel is true, the
+     * file is written through the NIO backend (ChannelWriter), which
+     * encodes into large direct buffers and writes them with one
+     * FileChannel call at a time. That's the one to use for huge
+     * storyboards, and it keeps track of its throughput (see
+     * getBytesPerSecond).
+     *
+     * @param fileName   the .osb file to write
+     * @param useChannel true to use the FileChannel backend
+     */
+    public Writer(String fileName, boolean useChannel) {
         try {
-            writer = new PrintWriter(fileName);
+            if (useChannel) {
+                writer = new ChannelWriter(Paths.get(fileName));
+            } else {
+                writer = new AsciiWriter(new FileOutputStream(fileName));
+            }
         } catch (Exception e) {
             System.out.println("File Error! Check your file name/conventions.");
         }
         backingArray = new ArrayList<Storyboard>();
-        writer.println("[Events]");
-        writer.println("//Background and Video events");
-        writer.flush();
+        println("[Events]");
+        println("//Background and Video events");
+        flush();
     }
 
     public void writeToFile(Sprite[] elements) {
@@ -93,71 +161,308 @@ public class Writer {
     }
 
     public void writeToFile(ArrayList<Storyboard> elements) {
-        boolean background = false;
-        boolean fail = false;
-        boolean pass = false;
-        boolean foreground = false;
+        //how many of the layer headers have been printed so far
+        int headers = 0;
 
+        if (validator != null) {
+            int found = validator.validate(elements);
+            report.add("Validator: " + found + " warnings in " + elements.size() + " objects");
+        }
+        if (culler != null) {
+            long objects = culler.getCulledObjects();
+            long commands = culler.getCulledCommands();
+            elements = culler.cull(elements);
+            report.add("Culler: removed " + (culler.getCulledObjects() - objects)
+                    + " objects and " + (culler.getCulledCommands() - commands) + " commands");
+        }
+        if (animationDetector != null) {
+            long animations = animationDetector.getAnimations();
+            long sprites = animationDetector.getCollapsedSprites();
+            elements = animationDetector.detect(elements);
+            report.add("Animations: made " + (animationDetector.getAnimations() - animations)
+                    + " animations out of " + (animationDetector.getCollapsedSprites() - sprites)
+                    + " sprites");
+        }
+        if (optimizer != null) {
+            report.add(optimizer.optimize(elements).toString());
+        }
+        if (loopDetector != null) {
+            long before = loopDetector.getCommandsBefore();
+            long after = loopDetector.getCommandsAfter();
+            int loops = loopDetector.detect(elements);
+            report.add("Loops: made " + loops + " loops, "
+                    + (loopDetector.getCommandsBefore() - before) + " -> "
+                    + (loopDetector.getCommandsAfter() - after) + " lines");
+        }
         backingArray.addAll(elements);
         Collections.sort(backingArray, (a, b) -> a.compareTo(b));
-        for (Storyboard s : backingArray) {
-            if (s.getLayerENUM() == Layer.Background) {
-                if (!background) {
-                    writer.println("//Storyboard Layer 0 (Background)");
-                    background = true;
-                }
-            } else if (s.getLayerENUM() == Layer.Fail) {
-                if (!background) {
-                    writer.println("//Storyboard Layer 0 (Background)");
-                    background = true;
-                }
-                if (!fail) {
-                    writer.println("//Storyboard Layer 1 (Fail)");
-                    fail = true;
-                }
-            } else if (s.getLayerENUM() == Layer.Pass) {
-                if (!background) {
-                    writer.println("//Storyboard Layer 0 (Background)");
-                    background = true;
-                }
-                if (!fail) {
-                    writer.println("//Storyboard Layer 1 (Fail)");
-                    fail = true;
-                }
-                if (!pass) {
-                    writer.println("//Storyboard Layer 2 (Pass)");
-                    pass = true;
-                }
-            } else if (s.getLayerENUM() == Layer.Foreground) {
-                if (!background) {
-                    writer.println("//Storyboard Layer 0 (Background)");
-                    background = true;
-                }
-                if (!fail) {
-                    writer.println("//Storyboard Layer 1 (Fail)");
-                    fail = true;
-                }
-                if (!pass) {
-                    writer.println("//Storyboard Layer 2 (Pass)");
-                    pass = true;
-                }
-                if (!foreground) {
-                    writer.println("//Storyboard Layer 3 (Foreground)");
-                    foreground = true;
+
+        if (parallel) {
+            headers = writeParallel(backingArray, headers);
+        } else {
+            for (Storyboard s : backingArray) {
+                headers = writeHeaders(s.getLayerENUM(), headers);
+
+                //stream the sprite straight into the file instead of
+                //building its whole block as a String first
+                try {
+                    if (cache != null) {
+                        byte[] chunk = cache.render(s);
+                        writer.write(chunk, 0, chunk.length);
+                    } else {
+                        s.writeTo(writer);
+                        writer.newLine();
+                    }
+                } catch (IOException e) {
+                    System.out.println("File Error! Could not write to the file.");
                 }
             }
-            writer.println(s.toString());
         }
-        writer.flush();
+        flush();
+    }
+
+    /**
+     * Turns parallel writing on or off. When it's on, the sprites
+     * get turned into text on all of the cores at the same time
+     * (each sprite's text doesn't depend on any other sprite), and
+     * then the finished chunks get written to the file in order.
+     * Uses the common ForkJoinPool.
+     *
+     * @param parallel true to render sprites in parallel
+     */
+    public void setParallel(boolean parallel) {
+        setParallel(parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Same as setParallel(true), but renders on a pool you give it.
+     * Pass in null to go back to writing on one thread.
+     *
+     * @param pool the pool to render sprites on, or null
+     */
+    public void setParallel(ForkJoinPool pool) {
+        this.pool = pool;
+        this.parallel = pool != null;
+    }
+
+    /**
+     * Sets an optimizer that gets run on every object handed to
+     * writeToFile before it's written. What it saved goes in getReport.
+     * Pass in null to turn it off (the default).
+     *
+     * @param optimizer the optimizer to run, or null
+     */
+    public void setOptimizer(CommandOptimizer optimizer) {
+        this.optimizer = optimizer;
+    }
+
+    /**
+     * Sets a culler that gets run on every object handed to
+     * writeToFile before it's written (and before the optimizer).
+     * Objects that are never visible don't get written at all.
+     * Pass in null to turn it off (the default).
+     *
+     * @param culler the culler to run, or null
+     */
+    public void setCuller(SpriteCuller culler) {
+        this.culler = culler;
+    }
+
+    /**
+     * Sets a loop detector that gets run on every object handed to
+     * writeToFile before it's written (after the culler and the
+     * optimizer), so repeating commands come out as loops.
+     * Pass in null to turn it off (the default).
+     *
+     * @param loopDetector the detector to run, or null
+     */
+    public void setLoopDetector(LoopDetector loopDetector) {
+        this.loopDetector = loopDetector;
+    }
+
+    /**
+     * Sets an animation detector that gets run on every object handed
+     * to writeToFile before it's written (after the culler, before the
+     * optimizer), so stacks of one-frame sprites come out as animations.
+     * Pass in null to turn it off (the default).
+     *
+     * @param animationDetector the detector to run, or null
+     */
+    public void setAnimationDetector(AnimationDetector animationDetector) {
+        this.animationDetector = animationDetector;
+    }
+
+    /**
+     * Sets a build cache. Objects that are exactly the same as in the
+     * build the cache was saved from are written from the cache
+     * instead of being rendered again, and the cache is saved for the
+     * next build at closing(). Pass in null to turn it off (the default).
+     *
+     * @param cache the cache to use, or null
+     */
+    public void setBuildCache(BuildCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets a validator that checks every object handed to
+     * writeToFile before anything else runs over it. Use it with
+     * objects that have validating turned off.
+     * Pass in null to turn it off (the default).
+     *
+     * @param validator the validator to run, or null
+     */
+    public void setValidator(Validator validator) {
+        this.validator = validator;
     }
 
     public void closing() {
-        writer.println("//Storyboard Sound Samples");
-        writer.flush();
+        println("//Storyboard Sound Samples");
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.out.println("File Error! Could not write to the file.");
+        }
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException e) {
+                System.out.println("File Error! Could not save the build cache.");
+            }
+            report.add("Build cache: reused " + cache.getReused() + ", rendered "
+                    + cache.getRendered());
+        }
     }
 
+    /**
+     * What the passes did, since the warnings themselves go to the
+     * DiagnosticLog sink: a line for every time one of them ran (the
+     * validator's count, what the culler removed, the animations and
+     * loops made, the optimizer's savings), in the order they ran,
+     * plus the build cache's hits once closing() is done.
+     *
+     * @return the summary lines so far
+     */
+    public List<String> getReport() {
+        return Collections.unmodifiableList(report);
+    }
+
+    /**
+     * @return how many bytes of storyboard have been written so far
+     */
+    public long getBytesWritten() {
+        return writer.getBytesWritten();
+    }
 
+    /**
+     * Throughput of the file output. Only the FileChannel backend
+     * keeps track of this, so it's 0 for the normal one.
+     *
+     * @return bytes written per second
+     */
+    public double getBytesPerSecond() {
+        if (writer instanceof ChannelWriter) {
+            return ((ChannelWriter) writer).getBytesPerSecond();
+        }
+        return 0;
+    }
 
+    //-----------------------------------------Helpers---------------------------------------------
 
+    /**
+     * Prints every layer header up to and including the given layer
+     * that hasn't been printed yet. osu! wants all four headers, in
+     * order, even for layers without any sprites in them.
+     *
+     * @param layer   the layer of the sprite that's about to be written
+     * @param headers how many headers have been printed already
+     * @return how many headers have been printed now
+     */
+    private int writeHeaders(Layer layer, int headers) {
+        while (headers <= layer.ordinal()) {
+            println(LAYER_HEADERS[headers]);
+            headers++;
+        }
+        return headers;
+    }
+
+    /**
+     * Parallel version of the loop in writeToFile. Sprites are
+     * handled in windows of PARALLEL_WINDOW at a time: every sprite
+     * in the window is rendered into its own byte chunk on the pool,
+     * then the chunks are written out in sorted order, with the layer
+     * headers put in between just like the normal loop does. Going
+     * window by window keeps memory bounded no matter how big the
+     * storyboard is.
+     *
+     * @throws IllegalStateException if a sprite fails to render (with
+     *                               what it threw as the cause), or
+     *                               the writing is interrupted, so the
+     *                               file isn't finished with sprites missing
+     */
+    private int writeParallel(ArrayList<Storyboard> sorted, int headers) {
+        byte[][] chunks = new byte[Math.min(PARALLEL_WINDOW, sorted.size())][];
+        for (int from = 0; from < sorted.size(); from += PARALLEL_WINDOW) {
+            final int start = from;
+            final int count = Math.min(PARALLEL_WINDOW, sorted.size() - from);
+            try {
+                pool.submit(() -> IntStream.range(0, count).parallel()
+                        .forEach(i -> chunks[i] = cache != null
+                                ? cache.render(sorted.get(start + i))
+                                : render(sorted.get(start + i))))
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Writing was interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A sprite failed to render.", e.getCause());
+            }
+
+            for (int i = 0; i < count; i++) {
+                headers = writeHeaders(sorted.get(start + i).getLayerENUM(), headers);
+                try {
+                    writer.write(chunks[i], 0, chunks[i].length);
+                } catch (IOException e) {
+                    System.out.println("File Error! Could not write to the file.");
+                }
+                chunks[i] = null;
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Renders one storyboard object (plus its line break) into bytes.
+     * Only touches the object itself, so it's safe to run on many
+     * objects at once. IncrementalWriter uses this too.
+     */
+    static byte[] render(Storyboard s) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        AsciiWriter chunk = new AsciiWriter(bytes, 8192);
+        try {
+            s.writeTo(chunk);
+            chunk.newLine();
+            chunk.flush();
+        } catch (IOException e) {
+            //ByteArrayOutputStream never actually throws this
+        }
+        return bytes.toByteArray();
+    }
+
+    private void println(String line) {
+        try {
+            writer.append(line).newLine();
+        } catch (IOException e) {
+            System.out.println("File Error! Could not write to the file.");
+        }
+    }
+
+    private void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            System.out.println("File Error! Could not write to the file.");
+        }
+    }
 
 }